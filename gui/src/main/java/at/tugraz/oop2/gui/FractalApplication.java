@@ -17,13 +17,17 @@ import javafx.scene.Cursor;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.*;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.stage.WindowEvent;
 import javafx.util.Duration;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.ArrayList;
@@ -41,6 +45,9 @@ public class FractalApplication extends Application {
     double previousMandelbrotY = 0;
     double previousJuliaX = 0;
     double previousJuliaY = 0;
+    // scrolled zoom that doesn't add up to a whole level yet, see wholeLevelZoom
+    private DoubleProperty mandelbrotScroll = new SimpleDoubleProperty(0);
+    private DoubleProperty juliaScroll = new SimpleDoubleProperty(0);
     Service<SimpleImage> mandelbrotRenderService, juliaRenderService;
     long renderStartMandelbrot = 0;
     long renderStartJulia = 0;
@@ -58,8 +65,48 @@ public class FractalApplication extends Application {
     private DoubleProperty juliaX = new SimpleDoubleProperty(0.0);
     private DoubleProperty juliaY = new SimpleDoubleProperty(0.0);
     private DoubleProperty juliaZoom = new SimpleDoubleProperty(0.0);
+    // exact centers for deep zoom, the properties above hold them rounded to doubles
+    private BigDecimal mandelbrotPreciseX = BigDecimal.ZERO;
+    private BigDecimal mandelbrotPreciseY = BigDecimal.ZERO;
+    private BigDecimal juliaPreciseX = BigDecimal.ZERO;
+    private BigDecimal juliaPreciseY = BigDecimal.ZERO;
     private Property<ColourModes> colourMode = new SimpleObjectProperty<>(ColourModes.BLACK_WHITE);
     private Property<RenderMode> renderMode = new SimpleObjectProperty<>(RenderMode.LOCAL);
+    private Property<RenderStrategy> renderStrategy = new SimpleObjectProperty<>(RenderStrategy.ROWS);
+    // a new render of a pane supersedes the ones still running
+    private final RenderGeneration mandelbrotGeneration = new RenderGeneration();
+    private final RenderGeneration juliaGeneration = new RenderGeneration();
+    // last finished render of a pane, a drag only computes the pixels that were moved in
+    private final RenderHistory mandelbrotHistory = new RenderHistory();
+    private final RenderHistory juliaHistory = new RenderHistory();
+    // recent renders of both panes, going back to a view only colours it again
+    private long cacheMegabytes = 128;
+    private RenderCache renderCache;
+    // fractal of the left pane, the right one always shows the Julia set
+    private Property<FractalType> fractalType = new SimpleObjectProperty<>(FractalType.MANDELBROT);
+    // zooms at which the renderers switch the precision tier
+    private double floatZoom = FractalRenderOptions.DEFAULT_FLOAT_ZOOM;
+    private double doubleDoubleZoom = FractalRenderOptions.DEFAULT_DOUBLE_DOUBLE_ZOOM;
+    private double perturbationZoom = FractalRenderOptions.DEFAULT_PERTURBATION_ZOOM;
+    // coarse passes are painted before the full image is done
+    private boolean progressive = true;
+    // raising the iterations continues the orbits of the last render
+    private boolean resumable = true;
+    // the iterations are picked from the zoom and a probe of the view, the iterations field is ignored then
+    private boolean autoIterations = false;
+    // scrolling zooms by whole levels, then the renderer reuses a quarter of the pixels for every level
+    private boolean wholeLevelZoom = false;
+    // sub-samples per axis of the pixels at an edge, 1 doesn't supersample
+    private int antialiasing = 1;
+    // bands of an export are kept within this budget, the image itself is never in memory
+    private long exportMegabytes = 256;
+    // renderers of the last render of the panes, an export renders their view
+    private MandelbrotRenderer lastMandelbrotRenderer;
+    private JuliaRenderer lastJuliaRenderer;
+    // coalesces the render requests of a pane, at most one render per frame if paced
+    private boolean pacing = true;
+    private RenderCoalescer mandelbrotRenders;
+    private RenderCoalescer juliaRenders;
     private IntegerProperty tasksPerWorker = new SimpleIntegerProperty(5);
     private Property<List<InetSocketAddress>> workerAdresses = new SimpleObjectProperty<>(new ArrayList<>(10));
     private Label connectedWorkersLabel;
@@ -94,46 +141,136 @@ public class FractalApplication extends Application {
         restartJuliaService();
     }
 
+    /**
+     * Keeps the exact center as long as the property still holds it, otherwise it was changed through the text fields
+     */
+    private static BigDecimal precise(BigDecimal precise, double value) {
+        return precise.doubleValue() == value ? precise : BigDecimal.valueOf(value);
+    }
+
+    /**
+     * Scales what the canvas shows around its middle, it stays there until the tiles of the new render replace it
+     *
+     * @param canvas    canvas of the pane
+     * @param zoomDelta change of the zoom, 1 doubles the size
+     */
+    private static void previewZoom(Canvas canvas, double zoomDelta) {
+        long start = System.nanoTime();
+        double factor = Math.pow(2, zoomDelta);
+        double middleX = canvas.getWidth() / 2;
+        double middleY = canvas.getHeight() / 2;
+
+        WritableImage shown = canvas.snapshot(null, null);
+        var graphics = canvas.getGraphicsContext2D();
+        graphics.setImageSmoothing(false);
+        if (factor < 1) {
+            // the border is outside of the last render
+            graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        }
+        graphics.drawImage(shown, middleX - middleX * factor, middleY - middleY * factor, canvas.getWidth() * factor, canvas.getHeight() * factor);
+        RenderLogger.log("zoom preview in", (System.nanoTime() - start) / 1000, "us");
+    }
+
+    /**
+     * Zoom after a scroll. Without {@link #wholeLevelZoom} it follows the wheel, otherwise it changes by whole levels
+     * and the rest is kept in the pane's scroll for the next event. The renderer reuses the pixels of the last
+     * render whenever the pixels of both are a power of two apart, which whole levels are unless adding them rounds.
+     *
+     * @param zoom   zoom of the pane
+     * @param delta  zoom the wheel asks for
+     * @param scroll zoom scrolled before that didn't add up to a whole level, updated with the rest
+     * @return the new zoom, the old one if nothing changes yet
+     */
+    private double scrolledZoom(double zoom, double delta, DoubleProperty scroll) {
+        if (!wholeLevelZoom) {
+            return zoom + delta;
+        }
+        scroll.set(scroll.get() + delta);
+        long levels = Math.round(scroll.get());
+        scroll.set(scroll.get() - levels);
+        return zoom + levels;
+    }
+
     private void restartMandelbrotService() {
+        mandelbrotRenders.request();
+    }
+
+    private void restartJuliaService() {
+        juliaRenders.request();
+    }
+
+    private Service<SimpleImage> startMandelbrotService() {
         //Log call for mandelbrot
         FractalRenderOptions renderOptions = new MandelbrotRenderOptions(mandelbrotX.get(), mandelbrotY.get(), (int) leftCanvas.getWidth(), (int) leftCanvas.getHeight(), mandelbrotZoom.get(), power.get(), iterations.get(), colourMode.getValue(), renderMode.getValue());
+        renderOptions.setType(fractalType.getValue());
         FractalLogger.logRenderCallGUI(renderOptions);
 
-        if (mandelbrotRenderService != null) {
-            mandelbrotRenderService.cancel();
-        }
-        MandelbrotRenderer mandelbrotRenderer = new MandelbrotRenderer(power.get(), iterations.get(), mandelbrotX.get(), mandelbrotY.get(), mandelbrotZoom.get(), colourMode.getValue(), renderMode.getValue(), tasksPerWorker.get(), workerAdresses.getValue(), leftCanvas);
+        MandelbrotRenderer mandelbrotRenderer = new MandelbrotRenderer(power.get(), iterations.get(), mandelbrotX.get(), mandelbrotY.get(), mandelbrotZoom.get(), colourMode.getValue(), renderMode.getValue());
         mandelbrotRenderer.setBounds((int) leftCanvas.getWidth(), (int) leftCanvas.getHeight());
+        mandelbrotRenderer.setRenderStrategy(renderStrategy.getValue());
+        mandelbrotRenderer.setFractalType(fractalType.getValue());
+        mandelbrotRenderer.setGeneration(mandelbrotGeneration);
+        mandelbrotRenderer.setHistory(mandelbrotHistory);
+        mandelbrotRenderer.setCache(renderCache);
+        mandelbrotRenderer.setPrecisionZooms(floatZoom, doubleDoubleZoom, perturbationZoom);
+        mandelbrotRenderer.setPreciseCenter(precise(mandelbrotPreciseX, mandelbrotX.get()), precise(mandelbrotPreciseY, mandelbrotY.get()));
         mandelbrotRenderService = new Service<>() {
             @Override
             protected Task<SimpleImage> createTask() {
                 return mandelbrotRenderer.createTask();
             }
         };
-        mandelbrotRenderService.setOnSucceeded(e -> mandelbrotRenderFinished(mandelbrotRenderService.getValue()));
+        Service<SimpleImage> mandelbrotService = mandelbrotRenderService;
+        mandelbrotRenderer.setProgressive(progressive);
+        mandelbrotRenderer.setResumable(resumable);
+        mandelbrotRenderer.setAutoIterations(autoIterations);
+        mandelbrotRenderer.setAntialiasing(antialiasing);
+        lastMandelbrotRenderer = mandelbrotRenderer;
+        var mandelbrotBlitter = new TileBlitter(leftCanvas, () -> mandelbrotService == mandelbrotRenderService && mandelbrotService.isRunning());
+        mandelbrotRenderer.setTileListener(mandelbrotBlitter);
+        mandelbrotRenderService.setOnSucceeded(e -> {
+            RenderLogger.log("MANDELBROT drawn,", mandelbrotBlitter);
+            mandelbrotRenderFinished(mandelbrotRenderService.getValue());
+        });
         renderStartMandelbrot = System.currentTimeMillis();
         mandelbrotRenderService.start();
+        return mandelbrotRenderService;
     }
 
-    private void restartJuliaService() {
+    private Service<SimpleImage> startJuliaService() {
         //Log call for julia
         FractalRenderOptions renderOptions = new JuliaRenderOptions(juliaX.get(), juliaY.get(), (int) rightCanvas.getWidth(), (int) rightCanvas.getHeight(), juliaZoom.get(), power.get(), iterations.get(), mandelbrotX.getValue(), mandelbrotY.getValue(), colourMode.getValue(), renderMode.getValue());
         FractalLogger.logRenderCallGUI(renderOptions);
 
-        if (juliaRenderService != null) {
-            juliaRenderService.cancel();
-        }
-        JuliaRenderer juliaRenderer = new JuliaRenderer(power.get(), iterations.get(), juliaX.get(), juliaY.get(), juliaZoom.get(), mandelbrotX.get(), mandelbrotY.get(), colourMode.getValue(), renderMode.getValue(), tasksPerWorker.get(), workerAdresses.getValue(), rightCanvas);
+        JuliaRenderer juliaRenderer = new JuliaRenderer(power.get(), iterations.get(), juliaX.get(), juliaY.get(), juliaZoom.get(), mandelbrotX.get(), mandelbrotY.get(), colourMode.getValue(), renderMode.getValue());
         juliaRenderer.setBounds((int) rightCanvas.getWidth(), (int) rightCanvas.getHeight());
+        juliaRenderer.setRenderStrategy(renderStrategy.getValue());
+        juliaRenderer.setPrecisionZooms(floatZoom, doubleDoubleZoom, perturbationZoom);
+        juliaRenderer.setGeneration(juliaGeneration);
+        juliaRenderer.setHistory(juliaHistory);
+        juliaRenderer.setCache(renderCache);
+        juliaRenderer.setPreciseCenter(precise(juliaPreciseX, juliaX.get()), precise(juliaPreciseY, juliaY.get()));
         juliaRenderService = new Service<>() {
             @Override
             protected Task<SimpleImage> createTask() {
                 return juliaRenderer.createTask();
             }
         };
-        juliaRenderService.setOnSucceeded(e -> juliaRenderFinished(juliaRenderService.getValue()));
+        Service<SimpleImage> juliaService = juliaRenderService;
+        juliaRenderer.setProgressive(progressive);
+        juliaRenderer.setResumable(resumable);
+        juliaRenderer.setAutoIterations(autoIterations);
+        juliaRenderer.setAntialiasing(antialiasing);
+        lastJuliaRenderer = juliaRenderer;
+        var juliaBlitter = new TileBlitter(rightCanvas, () -> juliaService == juliaRenderService && juliaService.isRunning());
+        juliaRenderer.setTileListener(juliaBlitter);
+        juliaRenderService.setOnSucceeded(e -> {
+            RenderLogger.log("JULIA drawn,", juliaBlitter);
+            juliaRenderFinished(juliaRenderService.getValue());
+        });
         renderStartJulia = System.currentTimeMillis();
         juliaRenderService.start();
+        return juliaRenderService;
     }
 
     public void mandelbrotRenderFinished(SimpleImage image) {
@@ -141,7 +278,7 @@ public class FractalApplication extends Application {
         renderTimeMandelbrot.set((double) millisTook / 1000);
         if (image != null) {
             FractalLogger.logRenderFinishedGUI(FractalType.MANDELBROT, image);
-            image.copyToCanvas(leftCanvas);
+            // already on the canvas, the tiles are copied before the render succeeds
             FractalLogger.logDrawDoneGUI(FractalType.MANDELBROT);
 
             var pane = mainPane.getCellBounds(0, 0);
@@ -166,7 +303,7 @@ public class FractalApplication extends Application {
         renderTimeJulia.set((double) millisTook / 1000);
         if (image != null) {
             FractalLogger.logRenderFinishedGUI(FractalType.JULIA, image);
-            image.copyToCanvas(rightCanvas);
+            // already on the canvas, the tiles are copied before the render succeeds
             FractalLogger.logDrawDoneGUI(FractalType.JULIA);
 
             var pane = mainPane.getCellBounds(1, 0);
@@ -191,6 +328,9 @@ public class FractalApplication extends Application {
         mainPane = new GridPane();
 
         parseArguments();
+        renderCache = new RenderCache(cacheMegabytes << 20);
+        mandelbrotRenders = new RenderCoalescer("MANDELBROT", this::startMandelbrotService, pacing);
+        juliaRenders = new RenderCoalescer("JULIA", this::startJuliaService, pacing);
 
         if (workerAdresses.getValue().isEmpty()) {
             InetSocketAddress newConnection = new InetSocketAddress("localhost", 8010);
@@ -207,27 +347,39 @@ public class FractalApplication extends Application {
             previousMandelbrotY = mouseEvent.getY();
         });
         leftCanvas.setOnMouseDragged(mouseEvent -> {
-            double pixelDeltaX = mouseEvent.getX() - previousMandelbrotX;
-            double pixelDeltaY = mouseEvent.getY() - previousMandelbrotY;
+            // whole pixels only, the rest is carried into the next event, the pixels of the last render stay on the grid
+            long pixelDeltaX = Math.round(mouseEvent.getX() - previousMandelbrotX);
+            long pixelDeltaY = Math.round(mouseEvent.getY() - previousMandelbrotY);
+            if (pixelDeltaX == 0 && pixelDeltaY == 0) {
+                return;
+            }
 
             SpaceTransform transform = new SpaceTransform((int) leftCanvas.getWidth(), (int) leftCanvas.getHeight(), mandelbrotZoom.get(), mandelbrotX.get(), mandelbrotY.get());
 
             double dragX = transform.dragDistanceX(pixelDeltaX);
             double dragY = transform.dragDistanceY(pixelDeltaY);
 
-            mandelbrotX.setValue(mandelbrotX.getValue() - dragX);
-            mandelbrotY.setValue(mandelbrotY.getValue() - dragY);
+            mandelbrotPreciseX = precise(mandelbrotPreciseX, mandelbrotX.get()).subtract(new BigDecimal(dragX));
+            mandelbrotPreciseY = precise(mandelbrotPreciseY, mandelbrotY.get()).subtract(new BigDecimal(dragY));
+            mandelbrotX.setValue(mandelbrotPreciseX.doubleValue());
+            mandelbrotY.setValue(mandelbrotPreciseY.doubleValue());
 
             FractalLogger.logDragGUI(mandelbrotX.get(), mandelbrotY.get(), FractalType.MANDELBROT);
             restartMandelbrotService();
             restartJuliaService();
 
-            previousMandelbrotX = mouseEvent.getX();
-            previousMandelbrotY = mouseEvent.getY();
+            previousMandelbrotX += pixelDeltaX;
+            previousMandelbrotY += pixelDeltaY;
         });
 
         leftCanvas.setOnScroll(event -> {
-            mandelbrotZoom.setValue(mandelbrotZoom.getValue() + (event.getDeltaY() * 0.02));
+            double zoom = scrolledZoom(mandelbrotZoom.get(), event.getDeltaY() * 0.02, mandelbrotScroll);
+            if (zoom == mandelbrotZoom.get()) {
+                return;
+            }
+            previewZoom(leftCanvas, zoom - mandelbrotZoom.get());
+
+            mandelbrotZoom.setValue(zoom);
             FractalLogger.logZoomGUI(mandelbrotZoom.getValue(), FractalType.MANDELBROT);
             restartMandelbrotService();
         });
@@ -243,27 +395,39 @@ public class FractalApplication extends Application {
             previousJuliaY = mouseEvent.getY();
         });
         rightCanvas.setOnMouseDragged(mouseEvent -> {
-            double pixelDeltaX = mouseEvent.getX() - previousJuliaX;
-            double pixelDeltaY = mouseEvent.getY() - previousJuliaY;
+            // whole pixels only, the rest is carried into the next event, the pixels of the last render stay on the grid
+            long pixelDeltaX = Math.round(mouseEvent.getX() - previousJuliaX);
+            long pixelDeltaY = Math.round(mouseEvent.getY() - previousJuliaY);
+            if (pixelDeltaX == 0 && pixelDeltaY == 0) {
+                return;
+            }
 
             SpaceTransform transform = new SpaceTransform((int) rightCanvas.getWidth(), (int) rightCanvas.getHeight(), juliaZoom.get(), juliaX.get(), juliaY.get());
 
             double dragX = transform.dragDistanceX(pixelDeltaX);
             double dragY = transform.dragDistanceY(pixelDeltaY);
 
-            juliaX.setValue(juliaX.getValue() - dragX);
-            juliaY.setValue(juliaY.getValue() - dragY);
+            juliaPreciseX = precise(juliaPreciseX, juliaX.get()).subtract(new BigDecimal(dragX));
+            juliaPreciseY = precise(juliaPreciseY, juliaY.get()).subtract(new BigDecimal(dragY));
+            juliaX.setValue(juliaPreciseX.doubleValue());
+            juliaY.setValue(juliaPreciseY.doubleValue());
 
             FractalLogger.logDragGUI(juliaX.get(), juliaY.get(), FractalType.JULIA);
             restartJuliaService();
 
-            previousJuliaX = mouseEvent.getX();
-            previousJuliaY = mouseEvent.getY();
+            previousJuliaX += pixelDeltaX;
+            previousJuliaY += pixelDeltaY;
         });
 
         rightCanvas.setOnScroll(event -> {
             System.out.println(event.getDeltaX() + " " + event.getDeltaY());
-            juliaZoom.setValue(juliaZoom.getValue() + (event.getDeltaY() * 0.02));
+            double zoom = scrolledZoom(juliaZoom.get(), event.getDeltaY() * 0.02, juliaScroll);
+            if (zoom == juliaZoom.get()) {
+                return;
+            }
+            previewZoom(rightCanvas, zoom - juliaZoom.get());
+
+            juliaZoom.setValue(zoom);
             FractalLogger.logZoomGUI(juliaZoom.getValue(), FractalType.JULIA);
             restartJuliaService();
         });
@@ -349,11 +513,15 @@ public class FractalApplication extends Application {
         controlPane.add(new Label("Julia zoom"), 0, 7);
         controlPane.add(new Label("ColorMode"), 0, 8); // colour = cringe
         controlPane.add(new Label("RenderMode"), 0, 9);
-        controlPane.add(new Label("Tasks per Worker"), 0, 10);
-        controlPane.add(new Label("Connection Editor"), 0, 11);
-        controlPane.add(new Label("Connected Workers"), 0, 12);
-        controlPane.add(new Label("Rendertime Mandelbrot"), 0, 13);
-        controlPane.add(new Label("Rendertime Julia"), 0, 14);
+        controlPane.add(new Label("RenderStrategy"), 0, 10);
+        controlPane.add(new Label("Fractal"), 0, 11);
+        controlPane.add(new Label("Tasks per Worker"), 0, 12);
+        controlPane.add(new Label("Connection Editor"), 0, 13);
+        controlPane.add(new Label("Connected Workers"), 0, 14);
+        controlPane.add(new Label("Rendertime Mandelbrot"), 0, 15);
+        controlPane.add(new Label("Rendertime Julia"), 0, 16);
+        controlPane.add(new Label("Export"), 0, 17);
+        controlPane.add(new Label("Export progress"), 0, 18);
 
         TextField iterationsTextField = new TextField(Integer.toString(iterations.get()));
         iterationsTextField.textProperty().addListener((observable, oldValue, newValue) -> {
@@ -491,6 +659,21 @@ public class FractalApplication extends Application {
             renderMode.setValue(newValue);
         });
 
+        ComboBox<RenderStrategy> renderStrategyField = new ComboBox<>(FXCollections.observableArrayList(RenderStrategy.values()));
+        renderStrategyField.getSelectionModel().select(renderStrategy.getValue());
+        renderStrategyField.getSelectionModel().selectedItemProperty().addListener((options, oldValue, newValue) -> {
+            renderStrategy.setValue(newValue);
+            restartMandelbrotService();
+            restartJuliaService();
+        });
+
+        ComboBox<FractalType> fractalTypeField = new ComboBox<>(FXCollections.observableArrayList(FractalType.MANDELBROT, FractalType.BURNING_SHIP, FractalType.TRICORN));
+        fractalTypeField.getSelectionModel().select(fractalType.getValue());
+        fractalTypeField.getSelectionModel().selectedItemProperty().addListener((options, oldValue, newValue) -> {
+            fractalType.setValue(newValue);
+            restartMandelbrotService();
+        });
+
         TextField tasksPerWorkerTextField = new TextField(Integer.toString(tasksPerWorker.get()));
         tasksPerWorkerTextField.textProperty().addListener((observable, oldValue, newValue) -> {
             try {
@@ -709,13 +892,25 @@ public class FractalApplication extends Application {
         controlPane.add(juliaZoomTextField, 1, 7);
         controlPane.add(colourModeField, 1, 8);
         controlPane.add(renderModeField, 1, 9);
-        controlPane.add(tasksPerWorkerTextField, 1, 10);
-        controlPane.add(connectionsButton, 1, 11);
+        controlPane.add(renderStrategyField, 1, 10);
+        controlPane.add(fractalTypeField, 1, 11);
+        controlPane.add(tasksPerWorkerTextField, 1, 12);
+        controlPane.add(connectionsButton, 1, 13);
 
         connectedWorkersLabel = new Label(getConnectedWorkersString());
-        controlPane.add(connectedWorkersLabel, 1, 12);
-        controlPane.add(renderTimeMandelbrotLabel, 1, 13);
-        controlPane.add(renderTimeJuliaLabel, 1, 14);
+        controlPane.add(connectedWorkersLabel, 1, 14);
+        controlPane.add(renderTimeMandelbrotLabel, 1, 15);
+        controlPane.add(renderTimeJuliaLabel, 1, 16);
+
+        var exportProgress = new ProgressBar(0);
+        var exportMandelbrotButton = new Button("Mandelbrot");
+        var exportJuliaButton = new Button("Julia");
+        exportMandelbrotButton.setOnAction(event -> exportImage(lastMandelbrotRenderer, exportProgress, exportMandelbrotButton, exportJuliaButton));
+        exportJuliaButton.setOnAction(event -> exportImage(lastJuliaRenderer, exportProgress, exportMandelbrotButton, exportJuliaButton));
+        var exportBox = new HBox(exportMandelbrotButton, exportJuliaButton);
+        exportBox.setSpacing(4.0);
+        controlPane.add(exportBox, 1, 17);
+        controlPane.add(exportProgress, 1, 18);
 
         //min, preferred, max
         ColumnConstraints controlLabelColConstraint = new ColumnConstraints(195, 195, 200, Priority.ALWAYS, HPos.CENTER, true);
@@ -742,13 +937,15 @@ public class FractalApplication extends Application {
                     break;
                 case "--mandelbrotx":
                     try {
-                        mandelbrotX.set(Double.parseDouble(param.split("=")[1]));
+                        mandelbrotPreciseX = new BigDecimal(param.split("=")[1]);
+                        mandelbrotX.set(mandelbrotPreciseX.doubleValue());
                     } catch (NumberFormatException ignored) {
                     }
                     break;
                 case "--mandelbroty":
                     try {
-                        mandelbrotY.set(Double.parseDouble(param.split("=")[1]));
+                        mandelbrotPreciseY = new BigDecimal(param.split("=")[1]);
+                        mandelbrotY.set(mandelbrotPreciseY.doubleValue());
                     } catch (NumberFormatException ignored) {
                     }
                     break;
@@ -760,13 +957,15 @@ public class FractalApplication extends Application {
                     break;
                 case "--juliax":
                     try {
-                        juliaX.set(Double.parseDouble(param.split("=")[1]));
+                        juliaPreciseX = new BigDecimal(param.split("=")[1]);
+                        juliaX.set(juliaPreciseX.doubleValue());
                     } catch (NumberFormatException ignored) {
                     }
                     break;
                 case "--juliay":
                     try {
-                        juliaY.set(Double.parseDouble(param.split("=")[1]));
+                        juliaPreciseY = new BigDecimal(param.split("=")[1]);
+                        juliaY.set(juliaPreciseY.doubleValue());
                     } catch (NumberFormatException ignored) {
                     }
                     break;
@@ -797,6 +996,72 @@ public class FractalApplication extends Application {
                         renderMode.setValue(RenderMode.DISTRIBUTED);
                     }
                     break;
+                case "--renderstrategy":
+                    try {
+                        renderStrategy.setValue(RenderStrategy.valueOf(param.split("=")[1]));
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                    break;
+                case "--floatzoom":
+                    try {
+                        floatZoom = Double.parseDouble(param.split("=")[1]);
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                case "--doubledoublezoom":
+                    try {
+                        doubleDoubleZoom = Double.parseDouble(param.split("=")[1]);
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                case "--perturbationzoom":
+                    try {
+                        perturbationZoom = Double.parseDouble(param.split("=")[1]);
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                case "--progressive":
+                    progressive = Boolean.parseBoolean(param.split("=")[1]);
+                    break;
+                case "--resume":
+                    resumable = Boolean.parseBoolean(param.split("=")[1]);
+                    break;
+                case "--wholelevelzoom":
+                    wholeLevelZoom = Boolean.parseBoolean(param.split("=")[1]);
+                    break;
+                case "--autoiterations":
+                    autoIterations = Boolean.parseBoolean(param.split("=")[1]);
+                    break;
+                case "--antialiasing":
+                    try {
+                        antialiasing = Math.max(1, Math.min(FractalRenderer.MAX_ANTIALIASING, Integer.parseInt(param.split("=")[1])));
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                case "--exportmb":
+                    try {
+                        exportMegabytes = Long.parseLong(param.split("=")[1]);
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                case "--pacing":
+                    pacing = Boolean.parseBoolean(param.split("=")[1]);
+                    break;
+                case "--cachemb":
+                    try {
+                        cacheMegabytes = Long.parseLong(param.split("=")[1]);
+                    } catch (NumberFormatException ignored) {
+                    }
+                    break;
+                case "--fractal":
+                    try {
+                        FractalType type = FractalType.valueOf(param.split("=")[1]);
+                        if (type != FractalType.JULIA) {
+                            fractalType.setValue(type);
+                        }
+                    } catch (IllegalArgumentException ignored) {
+                    }
+                    break;
                 case "--connection":
                     for (String connection : param.split("=")[1].split(",")) {
                         try {
@@ -834,6 +1099,71 @@ public class FractalApplication extends Application {
         }
     }
 
+    /**
+     * Asks for the size and the file and exports the view of a pane in the background, see {@link FractalRenderer#export}
+     *
+     * @param renderer renderer of the last render of the pane
+     * @param progress shows the share of the rows that are done
+     * @param buttons  disabled while the export runs
+     */
+    public void exportImage(FractalRenderer renderer, ProgressBar progress, Button... buttons) {
+        if (renderer == null) {
+            return;
+        }
+        TextInputDialog dialog = new TextInputDialog("16384x16384");
+        dialog.setTitle("Export");
+        dialog.setHeaderText("Enter the size of the exported image");
+        dialog.setContentText("<Width>x<Height>");
+
+        Optional<String> result = dialog.showAndWait();
+        if (result.isEmpty()) {
+            return;
+        }
+        Matcher size = Pattern.compile("([1-9][0-9]*)x([1-9][0-9]*)").matcher(result.get().trim());
+        if (!size.matches()) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "The entered value is not in the right format", ButtonType.CLOSE);
+            alert.showAndWait();
+            return;
+        }
+        int width;
+        int height;
+        try {
+            width = Integer.parseInt(size.group(1));
+            height = Integer.parseInt(size.group(2));
+        } catch (NumberFormatException e) {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "The entered value is not in the right format", ButtonType.CLOSE);
+            alert.showAndWait();
+            return;
+        }
+
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export");
+        chooser.getExtensionFilters().addAll(new FileChooser.ExtensionFilter("PNG", "*.png"), new FileChooser.ExtensionFilter("Raw RGB", "*.rgb"));
+        File file = chooser.showSaveDialog(controlPane.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Task<Void> export = new Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                renderer.export(ImageEncoder.open(file.toPath(), width, height), width, height, exportMegabytes << 20, share -> updateProgress(share, 1));
+                return null;
+            }
+        };
+        progress.progressProperty().bind(export.progressProperty());
+        for (Button button : buttons) {
+            button.disableProperty().bind(export.runningProperty());
+        }
+        export.setOnFailed(event -> {
+            Alert alert = new Alert(Alert.AlertType.ERROR, "The export failed: " + export.getException().getMessage(), ButtonType.CLOSE);
+            alert.showAndWait();
+        });
+        Thread thread = new Thread(export, "export");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
     public void showConnectionsWindow() {
         Stage connectionsWindow = new Stage();
         connectionsWindow.setTitle("Connections");
@@ -0,0 +1,101 @@
+package at.tugraz.oop2.gui;
+
+import at.tugraz.oop2.shared.RenderLogger;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.concurrent.Worker;
+import lombok.Getter;
+
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the render requests of a pane, the latest one wins. A request only marks the pane as changed,
+ * the render is started later with the parameters of that time, so a burst of requests like the layout
+ * changes of a resize or the text fields following a drag is rendered once. At most one render runs,
+ * starting a new one supersedes it.
+ * <p>
+ * Paced, the render is started on the next pulse and never more often than the display shows frames.
+ * Otherwise it is started right after the event that requested it.
+ */
+public class RenderCoalescer {
+
+    private final String name;
+
+    private final Supplier<Worker<?>> start;
+
+    private final boolean paced;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            startPending();
+            stop();
+        }
+    };
+
+    private Worker<?> running;
+
+    private boolean pending;
+
+    private boolean scheduled;
+
+    /**
+     * Number of requests so far
+     */
+    @Getter
+    private long requests;
+
+    /**
+     * Number of renders started so far
+     */
+    @Getter
+    private long renders;
+
+    /**
+     * @param name  name of the pane for the log
+     * @param start starts a render with the current parameters, called on the FX thread
+     * @param paced start renders on the next pulse instead of right after the request
+     */
+    public RenderCoalescer(String name, Supplier<Worker<?>> start, boolean paced) {
+        this.name = name;
+        this.start = start;
+        this.paced = paced;
+    }
+
+    /**
+     * Requests a render with the parameters the pane has once it is started, can be called from any thread
+     */
+    public void request() {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(this::request);
+            return;
+        }
+
+        requests++;
+        pending = true;
+        if (paced) {
+            timer.start();
+        } else if (!scheduled) {
+            scheduled = true;
+            Platform.runLater(() -> {
+                scheduled = false;
+                startPending();
+            });
+        }
+    }
+
+    private void startPending() {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+
+        if (running != null && running.isRunning()) {
+            // superseded, its tiles stop at the next row
+            running.cancel();
+        }
+        running = start.get();
+        renders++;
+        RenderLogger.log(name, "render", renders, "for", requests, "requests");
+    }
+}
@@ -0,0 +1,75 @@
+package at.tugraz.oop2.gui;
+
+import at.tugraz.oop2.shared.SimpleImage;
+import at.tugraz.oop2.shared.TileListener;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Copies finished tiles to the canvas. Tiles done in the meantime are collected and copied together
+ * by a single call on the FX thread, instead of one call per tile.
+ * <p>
+ * The pixels of the image already are ARGB, the FX thread writes the rectangles straight from them.
+ */
+public class TileBlitter implements TileListener {
+
+    private record Tile(SimpleImage image, int x, int y, int width, int height) {
+    }
+
+    private final Canvas canvas;
+
+    private final BooleanSupplier current;
+
+    private final ConcurrentLinkedQueue<Tile> tiles = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // only used on the FX thread
+    private long copied;
+
+    private long batches;
+
+    private long fxNanos;
+
+    /**
+     * @param canvas  canvas the tiles are copied to
+     * @param current false once the render was superseded, its tiles are dropped then
+     */
+    public TileBlitter(Canvas canvas, BooleanSupplier current) {
+        this.canvas = canvas;
+        this.current = current;
+    }
+
+    @Override
+    public void tileDone(SimpleImage image, int x, int y, int width, int height) {
+        tiles.add(new Tile(image, x, y, width, height));
+        if (!scheduled.getAndSet(true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    private void flush() {
+        long start = System.nanoTime();
+        // tiles added after this are in the next batch
+        scheduled.set(false);
+        boolean show = current.getAsBoolean();
+        Tile tile;
+        while ((tile = tiles.poll()) != null) {
+            if (show) {
+                tile.image().copyToCanvas(canvas, tile.x(), tile.y(), tile.width(), tile.height());
+                copied++;
+            }
+        }
+        batches++;
+        fxNanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d tiles in %d batches, %d us on the FX thread", copied, batches, fxNanos / 1000);
+    }
+}
@@ -0,0 +1,44 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Burning Ship fractal, the Mandelbrot iteration on the absolute values of both parts of z
+ */
+public final class BurningShipKernel implements ResumableKernel {
+    private final double power;
+    private final int maxIterations;
+    private final double periodEpsilon;
+
+    /**
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     */
+    public BurningShipKernel(double power, int maxIterations, double periodEpsilon) {
+        this.power = power;
+        this.maxIterations = maxIterations;
+        this.periodEpsilon = periodEpsilon;
+    }
+
+    @Override
+    public int iterate(double x, double y) {
+        return EscapeTimeKernel.burningShip(x, y, power, maxIterations, periodEpsilon);
+    }
+
+    @Override
+    public int resume(double x, double y, EscapeTimeKernel.Orbit orbit) {
+        if (orbit.iterations == 0) {
+            if (x * x + y * y > 4) {
+                return 0;
+            }
+            orbit.start(0, 0);
+        }
+        return EscapeTimeKernel.resumeFolded(x, y, power, true, maxIterations, periodEpsilon, orbit);
+    }
+
+    @Override
+    public void iterateRow(double[] xs, double y, int[] out) {
+        for (int x = 0; x < xs.length; x++) {
+            out[x] = iterate(xs[x], y);
+        }
+    }
+}
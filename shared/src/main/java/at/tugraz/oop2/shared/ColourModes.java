@@ -5,6 +5,25 @@ public enum ColourModes {
     COLOUR_FADE,
     GRAY_SCALE;
 
+    /**
+     * Returns the packed colour of every iteration count, computed once per mode and iteration count,
+     * see {@link PaletteCache}
+     *
+     * @param maxIterations maximum iterations in a calculation
+     * @return the colour of i iterations at index i + 1, of infinity at index 0, must not be changed
+     */
+    public int[] getPalette(int maxIterations) {
+        return PaletteCache.get(this, maxIterations);
+    }
+
+    int[] createPalette(int maxIterations) {
+        int[] palette = new int[maxIterations + 1];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = SimpleImage.pack(getPixel(i - 1, maxIterations));
+        }
+        return palette;
+    }
+
     /**
      * Returns the color of the pixel according to the color mode
      *
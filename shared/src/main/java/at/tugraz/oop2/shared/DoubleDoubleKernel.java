@@ -0,0 +1,131 @@
+package at.tugraz.oop2.shared;
+
+import java.math.BigDecimal;
+
+/**
+ * Power 2 escape time kernel in double-double arithmetic, every number is the unevaluated sum
+ * {@code hi + lo} of two doubles. That gives about 106 bits of mantissa, enough for zooms where
+ * doubles break down but a {@link PerturbationKernel} isn't needed yet.
+ * <p>
+ * The products use {@link Math#fma} to get the rounding error of {@code hi * hi} exactly.
+ * Iterations are counted the same way as in {@link EscapeTimeKernel}.
+ */
+public final class DoubleDoubleKernel implements FractalKernel {
+    private final double centerXHi, centerXLo, centerYHi, centerYLo;
+    private final double constX, constY;
+    private final boolean julia;
+    private final int maxIterations;
+
+    /**
+     * @param centerX       real part of the center
+     * @param centerY       imaginary part of the center
+     * @param constX        real part of the Julia constant, ignored for the Mandelbrot set
+     * @param constY        imaginary part of the Julia constant, ignored for the Mandelbrot set
+     * @param julia         if the Julia set should be computed instead of the Mandelbrot set
+     * @param maxIterations maximum iterations in a calculation
+     */
+    public DoubleDoubleKernel(BigDecimal centerX, BigDecimal centerY, double constX, double constY, boolean julia, int maxIterations) {
+        this.centerXHi = centerX.doubleValue();
+        this.centerXLo = centerX.subtract(new BigDecimal(centerXHi)).doubleValue();
+        this.centerYHi = centerY.doubleValue();
+        this.centerYLo = centerY.subtract(new BigDecimal(centerYHi)).doubleValue();
+        this.constX = constX;
+        this.constY = constY;
+        this.julia = julia;
+        this.maxIterations = maxIterations;
+    }
+
+    @Override
+    public boolean isRelative() {
+        return true;
+    }
+
+    /**
+     * Iterations of the point {@code center + delta}
+     *
+     * @param dx real distance of the point to the center
+     * @param dy imaginary distance of the point to the center
+     * @return iterations the point held or -1 for infinity
+     */
+    @Override
+    public int iterate(double dx, double dy) {
+        // point = center + delta
+        double s = centerXHi + dx;
+        double v = s - centerXHi;
+        double t = (centerXHi - (s - v)) + (dx - v) + centerXLo;
+        double pxH = s + t;
+        double pxL = t - (pxH - s);
+
+        s = centerYHi + dy;
+        v = s - centerYHi;
+        t = (centerYHi - (s - v)) + (dy - v) + centerYLo;
+        double pyH = s + t;
+        double pyL = t - (pyH - s);
+
+        if (pxH * pxH + pyH * pyH > 4) {
+            return 0;
+        }
+
+        if (julia) {
+            return iterate(pxH, pxL, pyH, pyL, constX, 0, constY, 0, maxIterations);
+        }
+        return iterate(0, 0, 0, 0, pxH, pxL, pyH, pyL, maxIterations);
+    }
+
+    @Override
+    public void iterateRow(double[] xs, double y, int[] out) {
+        for (int x = 0; x < xs.length; x++) {
+            out[x] = iterate(xs[x], y);
+        }
+    }
+
+    private static int iterate(double zrH, double zrL, double ziH, double ziL, double crH, double crL, double ciH, double ciL, int maxIterations) {
+        double p, e, s, v, t;
+
+        for (int i = 0; i < maxIterations; i++) {
+            // zr2 = zr * zr
+            p = zrH * zrH;
+            e = Math.fma(zrH, zrH, -p) + 2 * zrH * zrL;
+            double zr2H = p + e;
+            double zr2L = e - (zr2H - p);
+
+            // zi2 = zi * zi
+            p = ziH * ziH;
+            e = Math.fma(ziH, ziH, -p) + 2 * ziH * ziL;
+            double zi2H = p + e;
+            double zi2L = e - (zi2H - p);
+
+            // zri = 2 * zr * zi, the factor 2 is exact
+            p = zrH * ziH;
+            e = Math.fma(zrH, ziH, -p) + zrH * ziL + zrL * ziH;
+            double zriH = 2 * (p + e);
+            double zriL = 2 * (e - ((p + e) - p));
+
+            // zi = zri + ci
+            s = zriH + ciH;
+            v = s - zriH;
+            t = (zriH - (s - v)) + (ciH - v) + zriL + ciL;
+            ziH = s + t;
+            ziL = t - (ziH - s);
+
+            // zr = zr2 - zi2 + cr
+            s = zr2H - zi2H;
+            v = s - zr2H;
+            t = (zr2H - (s - v)) + (-zi2H - v) + zr2L - zi2L;
+            double dH = s + t;
+            double dL = t - (dH - s);
+
+            s = dH + crH;
+            v = s - dH;
+            t = (dH - (s - v)) + (crH - v) + dL + crL;
+            zrH = s + t;
+            zrL = t - (zrH - s);
+
+            if (zrH * zrH + ziH * ziH >= 4.0) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,560 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Escape time iteration of z = z^power + c on plain doubles.
+ * Nothing in here allocates, neither per pixel nor per iteration.
+ */
+public final class EscapeTimeKernel {
+
+    /**
+     * Whole powers above this go through the polar form, z^k overflows long before anyway
+     */
+    static final int MAX_INTEGRAL_POWER = 64;
+
+    /**
+     * Fractional powers with up to this many halvings, multiples of 1/8, are raised without the angle of z
+     */
+    static final int MAX_HALVINGS = 3;
+
+    // what the Burning Ship and the Tricorn do to z before it is raised to the power
+    private static final int FOLD_NONE = 0;
+    private static final int FOLD_ABSOLUTE = 1;
+    private static final int FOLD_CONJUGATE = 2;
+
+    /**
+     * Where the orbit of a point stopped when it reached the maximum iterations, a render with more
+     * iterations continues it from there and gets the same result as if it had started over.
+     * One instance is reused for all points of a kernel.
+     */
+    public static final class Orbit {
+        /**
+         * Number of values {@link #store} writes
+         */
+        public static final int SIZE = 4;
+
+        int iterations;
+
+        double zr;
+
+        double zi;
+
+        // reference of the periodicity check
+        double refR;
+
+        double refI;
+
+        boolean running;
+
+        /**
+         * Starts the orbit at z, no iterations done yet
+         */
+        public void start(double zr, double zi) {
+            this.iterations = 0;
+            this.zr = zr;
+            this.zi = zi;
+            this.refR = zr;
+            this.refI = zi;
+        }
+
+        /**
+         * Forgets the orbit, the kernel starts the next one at its point
+         */
+        public void clear() {
+            iterations = 0;
+        }
+
+        /**
+         * Continues a stored orbit
+         *
+         * @param iterations iterations the orbit did
+         */
+        public void load(double[] states, int offset, int iterations) {
+            this.iterations = iterations;
+            zr = states[offset];
+            zi = states[offset + 1];
+            refR = states[offset + 2];
+            refI = states[offset + 3];
+        }
+
+        public void store(double[] states, int offset) {
+            states[offset] = zr;
+            states[offset + 1] = zi;
+            states[offset + 2] = refR;
+            states[offset + 3] = refI;
+        }
+
+        /**
+         * @return true if the orbit reached the maximum iterations, only meaningful if the point held -1
+         */
+        public boolean isRunning() {
+            return running;
+        }
+
+        static int ended(Orbit orbit) {
+            if (orbit != null) {
+                orbit.running = false;
+            }
+            return -1;
+        }
+
+        static int stopped(Orbit orbit, double zr, double zi, double refR, double refI, int maxIterations) {
+            if (orbit != null) {
+                orbit.iterations = maxIterations;
+                orbit.zr = zr;
+                orbit.zi = zi;
+                orbit.refR = refR;
+                orbit.refI = refI;
+                orbit.running = true;
+            }
+            return -1;
+        }
+    }
+
+    private EscapeTimeKernel() {
+    }
+
+    /**
+     * Continues an orbit of the Mandelbrot set or a Julia set
+     *
+     * @param cr            real part of c
+     * @param ci            imaginary part of c
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @param orbit         where the orbit stopped, where it stops now if it reaches maxIterations again
+     * @return iterations until escape or -1 for infinity
+     */
+    public static int resume(double cr, double ci, double power, int maxIterations, double periodEpsilon, Orbit orbit) {
+        orbit.running = false;
+        return iterate(orbit.zr, orbit.zi, cr, ci, power, maxIterations, periodEpsilon, orbit);
+    }
+
+    /**
+     * Continues an orbit of the Burning Ship fractal or the Tricorn, see {@link #resume}
+     *
+     * @param absolute true for the Burning Ship, false for the Tricorn
+     */
+    public static int resumeFolded(double cr, double ci, double power, boolean absolute, int maxIterations, double periodEpsilon, Orbit orbit) {
+        orbit.running = false;
+        return iterateFolded(orbit.zr, orbit.zi, cr, ci, power, absolute, maxIterations, periodEpsilon, orbit);
+    }
+
+    /**
+     * Iterations a point of the Mandelbrot set holds
+     *
+     * @param cx            real part of the point
+     * @param cy            imaginary part of the point
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @return iterations until escape or -1 for infinity
+     */
+    public static int mandelbrot(double cx, double cy, double power, int maxIterations, double periodEpsilon) {
+        if (cx * cx + cy * cy > 4) {
+            return 0;
+        }
+
+        return iterate(0, 0, cx, cy, power, maxIterations, periodEpsilon, null);
+    }
+
+    /**
+     * Closed form test for the main cardioid and the period 2 bulb of the power 2 Mandelbrot set.
+     * Points inside never escape, so they can skip the iteration entirely.
+     *
+     * @param cx real part of the point
+     * @param cy imaginary part of the point
+     * @return true if the point is inside either region
+     */
+    public static boolean inMainCardioidOrBulb(double cx, double cy) {
+        double y2 = cy * cy;
+
+        double xq = cx - 0.25;
+        double q = xq * xq + y2;
+        if (q * (q + xq) <= 0.25 * y2) {
+            return true;
+        }
+
+        double xb = cx + 1;
+        return xb * xb + y2 <= 0.0625;
+    }
+
+    /**
+     * Iterations a point of the Julia set holds
+     *
+     * @param zx            real part of the point
+     * @param zy            imaginary part of the point
+     * @param cx            real part of the constant
+     * @param cy            imaginary part of the constant
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @return iterations until escape or -1 for infinity
+     */
+    public static int julia(double zx, double zy, double cx, double cy, double power, int maxIterations, double periodEpsilon) {
+        if (zx * zx + zy * zy > 4) {
+            return 0;
+        }
+
+        return iterate(zx, zy, cx, cy, power, maxIterations, periodEpsilon, null);
+    }
+
+    /**
+     * Iterations a point of the Burning Ship fractal holds, z = (|Re z| + i |Im z|)^power + c
+     *
+     * @param cx            real part of the point
+     * @param cy            imaginary part of the point
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @return iterations until escape or -1 for infinity
+     */
+    public static int burningShip(double cx, double cy, double power, int maxIterations, double periodEpsilon) {
+        if (cx * cx + cy * cy > 4) {
+            return 0;
+        }
+
+        return iterateFolded(0, 0, cx, cy, power, true, maxIterations, periodEpsilon, null);
+    }
+
+    /**
+     * Iterations a point of the Tricorn holds, z = conj(z)^power + c
+     *
+     * @param cx            real part of the point
+     * @param cy            imaginary part of the point
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @return iterations until escape or -1 for infinity
+     */
+    public static int tricorn(double cx, double cy, double power, int maxIterations, double periodEpsilon) {
+        if (cx * cx + cy * cy > 4) {
+            return 0;
+        }
+
+        return iterateFolded(0, 0, cx, cy, power, false, maxIterations, periodEpsilon, null);
+    }
+
+    /**
+     * Checks if the power is a whole number we have a cartesian fast path for
+     *
+     * @param power exponent of z
+     * @return the power as int or -1 if it goes through {@link #iteratePower}
+     */
+    public static int integralPower(double power) {
+        if (power >= 2 && power <= MAX_INTEGRAL_POWER && power == Math.rint(power)) {
+            return (int) power;
+        }
+        return -1;
+    }
+
+    /*
+     * Periodicity check (Brent): the orbit is compared against a reference z every iteration,
+     * the reference is replaced at every power of two iteration. If the orbit comes back to the
+     * reference it is caught in a cycle and will never escape, so we can stop early with -1.
+     * With a negative epsilon the comparison is never true and the check is effectively off.
+     */
+    private static int iterate(double zr, double zi, double cr, double ci, double power, int maxIterations, double eps, Orbit orbit) {
+        int k = integralPower(power);
+        return switch (k) {
+            case 2 -> iterateSquare(zr, zi, cr, ci, maxIterations, eps, orbit);
+            case 3 -> iterateCube(zr, zi, cr, ci, maxIterations, eps, orbit);
+            case 4 -> iterateQuartic(zr, zi, cr, ci, maxIterations, eps, orbit);
+            case -1 -> iteratePower(zr, zi, cr, ci, power, FOLD_NONE, maxIterations, eps, orbit);
+            default -> iterateIntegral(zr, zi, cr, ci, k, maxIterations, eps, orbit);
+        };
+    }
+
+    private static int iterateSquare(double zr, double zi, double cr, double ci, int maxIterations, double eps, Orbit orbit) {
+        double zr2 = zr * zr;
+        double zi2 = zi * zi;
+
+        double refR = orbit != null ? orbit.refR : zr;
+        double refI = orbit != null ? orbit.refI : zi;
+        int from = orbit != null ? orbit.iterations : 0;
+        int nextRef = Math.max(1, Integer.highestOneBit(Math.max(from - 1, 0)) << 1);
+
+        for (int i = from; i < maxIterations; i++) {
+            zi = 2 * zr * zi + ci;
+            zr = zr2 - zi2 + cr;
+            zr2 = zr * zr;
+            zi2 = zi * zi;
+
+            if (zr2 + zi2 >= 4.0) {
+                return i;
+            }
+
+            if (Math.abs(zr - refR) <= eps && Math.abs(zi - refI) <= eps) {
+                return Orbit.ended(orbit);
+            }
+            if (i == nextRef) {
+                refR = zr;
+                refI = zi;
+                nextRef <<= 1;
+            }
+        }
+
+        return Orbit.stopped(orbit, zr, zi, refR, refI, maxIterations);
+    }
+
+    private static int iterateCube(double zr, double zi, double cr, double ci, int maxIterations, double eps, Orbit orbit) {
+        double refR = orbit != null ? orbit.refR : zr;
+        double refI = orbit != null ? orbit.refI : zi;
+        int from = orbit != null ? orbit.iterations : 0;
+        int nextRef = Math.max(1, Integer.highestOneBit(Math.max(from - 1, 0)) << 1);
+
+        for (int i = from; i < maxIterations; i++) {
+            double zr2 = zr * zr;
+            double zi2 = zi * zi;
+            double nr = zr * (zr2 - 3 * zi2) + cr;
+            zi = zi * (3 * zr2 - zi2) + ci;
+            zr = nr;
+
+            if (zr * zr + zi * zi >= 4.0) {
+                return i;
+            }
+
+            if (Math.abs(zr - refR) <= eps && Math.abs(zi - refI) <= eps) {
+                return Orbit.ended(orbit);
+            }
+            if (i == nextRef) {
+                refR = zr;
+                refI = zi;
+                nextRef <<= 1;
+            }
+        }
+
+        return Orbit.stopped(orbit, zr, zi, refR, refI, maxIterations);
+    }
+
+    private static int iterateQuartic(double zr, double zi, double cr, double ci, int maxIterations, double eps, Orbit orbit) {
+        double refR = orbit != null ? orbit.refR : zr;
+        double refI = orbit != null ? orbit.refI : zi;
+        int from = orbit != null ? orbit.iterations : 0;
+        int nextRef = Math.max(1, Integer.highestOneBit(Math.max(from - 1, 0)) << 1);
+
+        for (int i = from; i < maxIterations; i++) {
+            // square twice
+            double sr = zr * zr - zi * zi;
+            double si = 2 * zr * zi;
+            zr = sr * sr - si * si + cr;
+            zi = 2 * sr * si + ci;
+
+            if (zr * zr + zi * zi >= 4.0) {
+                return i;
+            }
+
+            if (Math.abs(zr - refR) <= eps && Math.abs(zi - refI) <= eps) {
+                return Orbit.ended(orbit);
+            }
+            if (i == nextRef) {
+                refR = zr;
+                refI = zi;
+                nextRef <<= 1;
+            }
+        }
+
+        return Orbit.stopped(orbit, zr, zi, refR, refI, maxIterations);
+    }
+
+    private static int iterateIntegral(double zr, double zi, double cr, double ci, int power, int maxIterations, double eps, Orbit orbit) {
+        double refR = orbit != null ? orbit.refR : zr;
+        double refI = orbit != null ? orbit.refI : zi;
+        int from = orbit != null ? orbit.iterations : 0;
+        int nextRef = Math.max(1, Integer.highestOneBit(Math.max(from - 1, 0)) << 1);
+
+        for (int i = from; i < maxIterations; i++) {
+            // exponentiation by repeated squaring
+            double pr = 1;
+            double pi = 0;
+            double br = zr;
+            double bi = zi;
+            int e = power;
+
+            while (true) {
+                if ((e & 1) != 0) {
+                    double t = pr * br - pi * bi;
+                    pi = pr * bi + pi * br;
+                    pr = t;
+                }
+                e >>= 1;
+                if (e == 0) {
+                    break;
+                }
+                double t = br * br - bi * bi;
+                bi = 2 * br * bi;
+                br = t;
+            }
+
+            zr = pr + cr;
+            zi = pi + ci;
+
+            if (zr * zr + zi * zi >= 4.0) {
+                return i;
+            }
+
+            if (Math.abs(zr - refR) <= eps && Math.abs(zi - refI) <= eps) {
+                return Orbit.ended(orbit);
+            }
+            if (i == nextRef) {
+                refR = zr;
+                refI = zi;
+                nextRef <<= 1;
+            }
+        }
+
+        return Orbit.stopped(orbit, zr, zi, refR, refI, maxIterations);
+    }
+
+    /*
+     * Powers the loops above don't cover. A power n / 2^h is h principal square roots of z and then z^n by
+     * repeated squaring: the square root halves the angle of z in (-pi, pi] just like atan2 does, so it is the same
+     * branch as the polar form without any trigonometry. Only other fractional powers need the angle itself, and
+     * as adding c moves it in a way the last cos and sin don't tell, they keep one atan2 per iteration.
+     * Burning Ship and Tricorn fold z first, the fold doesn't change |z|.
+     */
+    private static int iteratePower(double zr, double zi, double cr, double ci, double power, int fold, int maxIterations, double eps, Orbit orbit) {
+        int halvings = halvings(power);
+        int n = halvings >= 0 ? (int) Math.scalb(power, halvings) : 0;
+        // |z|^power = (|z|^2)^(power / 2), so the squared radius of the escape check is reused and no sqrt is needed
+        double halfPower = power / 2;
+        double r2 = zr * zr + zi * zi;
+
+        double refR = orbit != null ? orbit.refR : zr;
+        double refI = orbit != null ? orbit.refI : zi;
+        int from = orbit != null ? orbit.iterations : 0;
+        int nextRef = Math.max(1, Integer.highestOneBit(Math.max(from - 1, 0)) << 1);
+
+        for (int i = from; i < maxIterations; i++) {
+            if (fold == FOLD_ABSOLUTE) {
+                zr = Math.abs(zr);
+                zi = Math.abs(zi);
+            } else if (fold == FOLD_CONJUGATE) {
+                zi = -zi;
+            }
+
+            if (halvings >= 0) {
+                double br = zr;
+                double bi = zi;
+                double b2 = r2;
+                for (int h = 0; h < halvings && b2 > 0; h++) {
+                    double m = Math.sqrt(b2);
+                    double t = Math.sqrt((m + Math.abs(br)) / 2);
+                    double u = bi / (2 * t);
+                    if (br >= 0) {
+                        br = t;
+                        bi = u;
+                    } else {
+                        br = Math.abs(u);
+                        bi = Math.copySign(t, bi);
+                    }
+                    b2 = m;
+                }
+
+                double pr = 1;
+                double pi = 0;
+                int e = n;
+                while (true) {
+                    if ((e & 1) != 0) {
+                        double t = pr * br - pi * bi;
+                        pi = pr * bi + pi * br;
+                        pr = t;
+                    }
+                    e >>= 1;
+                    if (e == 0) {
+                        break;
+                    }
+                    double t = br * br - bi * bi;
+                    bi = 2 * br * bi;
+                    br = t;
+                }
+
+                zr = pr + cr;
+                zi = pi + ci;
+            } else {
+                double rad = Math.pow(r2, halfPower);
+                double arg = Math.atan2(zi, zr) * power;
+                zr = rad * Math.cos(arg) + cr;
+                zi = rad * Math.sin(arg) + ci;
+            }
+            r2 = zr * zr + zi * zi;
+
+            if (r2 >= 4.0) {
+                return i;
+            }
+
+            if (Math.abs(zr - refR) <= eps && Math.abs(zi - refI) <= eps) {
+                return Orbit.ended(orbit);
+            }
+            if (i == nextRef) {
+                refR = zr;
+                refI = zi;
+                nextRef <<= 1;
+            }
+        }
+
+        return Orbit.stopped(orbit, zr, zi, refR, refI, maxIterations);
+    }
+
+    /**
+     * Checks if the power is n / 2^h for a whole n, then {@link #iteratePower} doesn't need the angle of z
+     *
+     * @param power exponent of z
+     * @return the smallest such h or -1 if there is none up to {@link #MAX_HALVINGS}
+     */
+    static int halvings(double power) {
+        if (power <= 0 || power > MAX_INTEGRAL_POWER) {
+            return -1;
+        }
+        for (int h = 0; h <= MAX_HALVINGS; h++) {
+            double n = Math.scalb(power, h);
+            if (n == Math.rint(n)) {
+                return h;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Burning Ship and Tricorn fold z before it is raised to the power, with the absolute values
+     * of both parts or with the complex conjugate. The fold doesn't change |z|, so the escape check is the same.
+     * Power 2 is cartesian here, all others go through iteratePower.
+     */
+    private static int iterateFolded(double zr, double zi, double cr, double ci, double power, boolean absolute, int maxIterations, double eps, Orbit orbit) {
+        if (integralPower(power) != 2) {
+            return iteratePower(zr, zi, cr, ci, power, absolute ? FOLD_ABSOLUTE : FOLD_CONJUGATE, maxIterations, eps, orbit);
+        }
+
+        double refR = orbit != null ? orbit.refR : zr;
+        double refI = orbit != null ? orbit.refI : zi;
+        int from = orbit != null ? orbit.iterations : 0;
+        int nextRef = Math.max(1, Integer.highestOneBit(Math.max(from - 1, 0)) << 1);
+
+        for (int i = from; i < maxIterations; i++) {
+            if (absolute) {
+                zr = Math.abs(zr);
+                zi = Math.abs(zi);
+            } else {
+                zi = -zi;
+            }
+
+            double nr = zr * zr - zi * zi + cr;
+            zi = 2 * zr * zi + ci;
+            zr = nr;
+
+            if (zr * zr + zi * zi >= 4.0) {
+                return i;
+            }
+
+            if (Math.abs(zr - refR) <= eps && Math.abs(zi - refI) <= eps) {
+                return Orbit.ended(orbit);
+            }
+            if (i == nextRef) {
+                refR = zr;
+                refI = zi;
+                nextRef <<= 1;
+            }
+        }
+
+        return Orbit.stopped(orbit, zr, zi, refR, refI, maxIterations);
+    }
+}
@@ -0,0 +1,53 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Iteration of one fractal type, the {@link FractalRenderer} does the rest: splitting the image,
+ * scheduling, colouring and assembling it.
+ * <p>
+ * The renderer hands the kernel a whole row at once and the loop over the pixels is in the kernel.
+ * Every kernel class has its own copy of that loop, so the iteration called inside of it always sees
+ * the same class and the JIT inlines it. A single loop in the renderer would see all kernels
+ * and stay a virtual call per pixel. Kernels hold statistics and are used by a single thread.
+ */
+public interface FractalKernel {
+
+    /**
+     * @return true if the kernel takes the distance of a point to the center instead of the point itself
+     */
+    default boolean isRelative() {
+        return false;
+    }
+
+    /**
+     * Iterations of a single point
+     *
+     * @param x real part of the point, its distance to the center if {@link #isRelative()}
+     * @param y imaginary part of the point, its distance to the center if {@link #isRelative()}
+     * @return iterations until escape or -1 for infinity
+     */
+    int iterate(double x, double y);
+
+    /**
+     * Iterations of a row of points, the same as {@link #iterate} for every point
+     *
+     * @param xs  real parts of the points
+     * @param y   imaginary part of the row
+     * @param out iterations for every point, -1 for infinity
+     */
+    void iterateRow(double[] xs, double y, int[] out);
+
+    /**
+     * @return true if the kernel is a {@link ResumableKernel} whose orbits end with the same iteration counts as
+     * {@link #iterateRow}, a render can keep them then and continue them with more iterations
+     */
+    default boolean isResumable() {
+        return false;
+    }
+
+    /**
+     * @return number of points that were known to be inside without iterating them
+     */
+    default int getSkipped() {
+        return 0;
+    }
+}
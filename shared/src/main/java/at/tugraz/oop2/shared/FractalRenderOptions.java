@@ -1,17 +1,34 @@
 package at.tugraz.oop2.shared;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.io.Serializable;
+import java.math.BigDecimal;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @EqualsAndHashCode
 public abstract class FractalRenderOptions implements Serializable {
+    /**
+     * Default distance at which an orbit counts as periodic
+     */
+    public static final double DEFAULT_PERIODICITY_EPSILON = 1e-15;
+    /**
+     * Default zoom below which floats are precise enough
+     */
+    public static final double DEFAULT_FLOAT_ZOOM = 2;
+    /**
+     * Default zoom from which on the {@link DoubleDoubleKernel} is used, doubles can't tell pixels apart from about 40 on.
+     * The same as the perturbation zoom since perturbation is faster, raise that one to render with double-doubles.
+     */
+    public static final double DEFAULT_DOUBLE_DOUBLE_ZOOM = 40;
+    /**
+     * Default zoom from which on the {@link PerturbationKernel} is used
+     */
+    public static final double DEFAULT_PERTURBATION_ZOOM = 40;
+
     protected double centerX;
     protected double centerY;
     protected int width;
@@ -25,4 +42,80 @@ public abstract class FractalRenderOptions implements Serializable {
     protected int totalFragments;
     protected int fragmentNumber;
     private RenderMode renderMode;
+    protected boolean periodicityCheck = true;
+    protected double periodicityEpsilon = DEFAULT_PERIODICITY_EPSILON;
+    /**
+     * Use the {@link VectorKernel} if it is available, falls back to the scalar kernel otherwise
+     */
+    protected boolean vectorized = true;
+    protected RenderStrategy renderStrategy = RenderStrategy.ROWS;
+    /**
+     * Exact center for deep zoom, null if centerX is exact enough
+     */
+    protected BigDecimal preciseCenterX;
+    /**
+     * Exact center for deep zoom, null if centerY is exact enough
+     */
+    protected BigDecimal preciseCenterY;
+    protected double floatZoom = DEFAULT_FLOAT_ZOOM;
+    protected double doubleDoubleZoom = DEFAULT_DOUBLE_DOUBLE_ZOOM;
+    protected double perturbationZoom = DEFAULT_PERTURBATION_ZOOM;
+    protected boolean seriesApproximation = true;
+    /**
+     * Sub-samples per axis of the pixels at an edge, the pixels with a neighbour of another iteration count.
+     * 0 or 1 doesn't supersample.
+     */
+    protected int antialiasing;
+
+    public FractalRenderOptions(double centerX, double centerY, int width, int height, double zoom, double power, int iterations, FractalType type, ColourModes mode, long requestId, int totalFragments, int fragmentNumber, RenderMode renderMode) {
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.width = width;
+        this.height = height;
+        this.zoom = zoom;
+        this.power = power;
+        this.iterations = iterations;
+        this.type = type;
+        this.mode = mode;
+        this.requestId = requestId;
+        this.totalFragments = totalFragments;
+        this.fragmentNumber = fragmentNumber;
+        this.renderMode = renderMode;
+    }
+
+    /**
+     * Epsilon handed to the {@link EscapeTimeKernel}, negative if the periodicity check is disabled
+     *
+     * @return epsilon for the kernel
+     */
+    public double getKernelPeriodEpsilon() {
+        return periodicityCheck ? periodicityEpsilon : -1;
+    }
+
+    public BigDecimal getPreciseCenterX() {
+        return preciseCenterX != null ? preciseCenterX : new BigDecimal(centerX);
+    }
+
+    public BigDecimal getPreciseCenterY() {
+        return preciseCenterY != null ? preciseCenterY : new BigDecimal(centerY);
+    }
+
+    /**
+     * Picks the number format from the zoom, everything except doubles only supports
+     * the Mandelbrot and Julia sets with power 2
+     *
+     * @return precision the image should be computed in
+     */
+    public PrecisionTier getPrecisionTier() {
+        if (EscapeTimeKernel.integralPower(power) != 2 || (type != FractalType.MANDELBROT && type != FractalType.JULIA)) {
+            return PrecisionTier.DOUBLE;
+        } else if (zoom >= perturbationZoom) {
+            return PrecisionTier.PERTURBATION;
+        } else if (zoom >= doubleDoubleZoom) {
+            return PrecisionTier.DOUBLE_DOUBLE;
+        } else if (zoom < floatZoom) {
+            return PrecisionTier.FLOAT;
+        }
+        return PrecisionTier.DOUBLE;
+    }
 }
@@ -0,0 +1,1068 @@
+package at.tugraz.oop2.shared;
+
+import javafx.concurrent.Service;
+import javafx.concurrent.Task;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Render engine for all fractal types. The image is cut into tiles that are rendered in parallel on the
+ * {@link RenderScheduler}, every tile gets a {@link FractalKernel} for the iteration, the engine does the rest.
+ * Subclasses only say which options the image is rendered with.
+ */
+public abstract class FractalRenderer extends Service<SimpleImage> {
+
+    private static final boolean DEBUG_PRINT = false;
+
+    /**
+     * Steps of the passes of a progressive render, 1/16 and 1/4 of the pixels before all of them
+     */
+    private static final int[] PROGRESSIVE_STEPS = {4, 2, 1};
+
+    /**
+     * Orbits continued by a single task of the pool, each of them runs for at least the added iterations
+     */
+    private static final int RESUMED_ORBITS = 1024;
+
+    /**
+     * Fewest and most iterations of an automatic budget
+     */
+    private static final int MIN_AUTO_ITERATIONS = 128;
+
+    private static final int MAX_AUTO_ITERATIONS = 1 << 16;
+
+    /**
+     * Zoom levels after which the initial automatic budget is doubled
+     */
+    private static final int ZOOM_PER_DOUBLING = 8;
+
+    /**
+     * The probe of an automatic budget computes every PROBE_STEP-th pixel in both directions
+     */
+    private static final int PROBE_STEP = 8;
+
+    /**
+     * Share of the pixels that may escape in the upper half of an automatic budget before it is doubled,
+     * with that many escaping late more of the black pixels would escape with more iterations
+     */
+    private static final double LATE_ESCAPES = 0.01;
+
+    /**
+     * Most sub-samples per axis of a pixel at an edge, every one is a kernel call for every such pixel
+     */
+    public static final int MAX_ANTIALIASING = 8;
+
+    /**
+     * Everything the tiles of one image share, tiles write their pixels straight into the image
+     */
+    static class Frame {
+
+        final FractalRenderOptions options;
+
+        // colour of every iteration count, see ColourModes.getPalette
+        final int[] palette;
+
+        final SpaceTransform transform;
+
+        final SimpleImage image;
+
+        // iteration counts of the whole image, complete once the last pass is done
+        final int[] iterations;
+
+        PrecisionTier tier;
+
+        // the reference orbit is computed once per frame, every tile iterates on a copy
+        PerturbationKernel reference;
+
+        final LongAdder skipped = new LongAdder();
+
+        final LongAdder computed = new LongAdder();
+
+        final LongAdder rebases = new LongAdder();
+
+        final long started = System.nanoTime();
+
+        // nanos after the start when tiles were done, 0 until the first one
+        final AtomicLong firstTile = new AtomicLong();
+
+        final LongAccumulator lastTile = new LongAccumulator(Math::max, 0);
+
+        TileListener tileListener;
+
+        // pixels of this frame that are taken from the last render of the pane, null if there are none
+        PreviousRender previous;
+
+        // orbits of the pixels that reached the iterations, null if the frame doesn't keep them
+        KeptOrbits orbits;
+
+        // null until the frame supersamples the pixels at an edge
+        Supersampler supersampler;
+
+        private final VectorKernel vectorKernel;
+
+        private final RenderGeneration generation;
+
+        private final long renderGeneration;
+
+        private volatile boolean cancelled;
+
+        public Frame(ColourModes colourMode, FractalRenderOptions options, RenderGeneration generation, long renderGeneration) {
+            this(colourMode, options, new SpaceTransform(options.width, options.height, options.zoom, options.centerX, options.centerY), null, generation, renderGeneration);
+        }
+
+        /**
+         * @param options   options of the frame, its size is the size of the band for a band of a larger image
+         * @param transform transform of the frame, see {@link SpaceTransform#band} for a band of a larger image
+         * @param reference reference orbit of the larger image or of the view with other iterations, null to
+         *                  compute it if the frame needs one
+         */
+        Frame(ColourModes colourMode, FractalRenderOptions options, SpaceTransform transform, PerturbationKernel reference, RenderGeneration generation, long renderGeneration) {
+            this.palette = colourMode.getPalette(options.iterations);
+            this.options = options;
+            this.generation = generation;
+            this.renderGeneration = renderGeneration;
+            this.transform = transform;
+            this.image = new SimpleImage(options.width, options.height);
+            this.iterations = new int[options.width * options.height];
+
+            VectorKernel vectorKernel = options.vectorized ? VectorKernel.INSTANCE : null;
+            if (vectorKernel != null && !vectorKernel.supports(options.power)) {
+                vectorKernel = null;
+            }
+            this.vectorKernel = vectorKernel;
+
+            tier = options.getPrecisionTier();
+            // floats are only faster because twice as many fit into a vector
+            if (tier == PrecisionTier.FLOAT && (vectorKernel == null || options.renderStrategy != RenderStrategy.ROWS)) {
+                tier = PrecisionTier.DOUBLE;
+            }
+
+            if (tier == PrecisionTier.PERTURBATION && reference != null) {
+                this.reference = reference.withIterations(options.iterations, this::isCancelled);
+            } else if (tier == PrecisionTier.PERTURBATION) {
+                this.reference = createReference(options, transform, this::isCancelled);
+            }
+
+            if (DEBUG_PRINT) {
+                System.out.printf("%s %s\n", transform, options);
+            }
+        }
+
+        /**
+         * Computes the reference orbit of the perturbation tier at the center of the pixel grid, with the series
+         * for the radius of the transform if the options use it
+         *
+         * @param options   options of the image
+         * @param transform transform of the image
+         * @param cancelled checked while the reference is computed
+         * @return the reference, frames with other iterations take it with {@link PerturbationKernel#withIterations}
+         */
+        static PerturbationKernel createReference(FractalRenderOptions options, SpaceTransform transform, BooleanSupplier cancelled) {
+            var reference = new PerturbationKernel(transform.gridCenterX(options.getPreciseCenterX()), transform.gridCenterY(options.getPreciseCenterY()),
+                    getConstantX(options), getConstantY(options), isJulia(options), options.iterations, transform.getPixelSize(), cancelled);
+            if (options.seriesApproximation) {
+                reference.approximateSeries(transform.getRadius());
+            }
+            return reference;
+        }
+
+        /**
+         * Takes the pixels of this frame that lie exactly on a pixel of the last render of the pane
+         *
+         * @param last last finished render or null
+         * @return number of pixels that are taken
+         */
+        long reuse(IterationBuffer last) {
+            previous = PreviousRender.of(last, options, tier);
+            return previous != null ? previous.getCount() : 0;
+        }
+
+        /**
+         * @return true if the orbits of the pixels can be kept, only a resumable kernel on the rows has them
+         */
+        boolean canKeepOrbits() {
+            return options.renderStrategy == RenderStrategy.ROWS && createKernel().isResumable();
+        }
+
+        /**
+         * @return the kept orbits or null if there are none or some are missing
+         */
+        OrbitBuffer getOrbits() {
+            return orbits != null ? orbits.getOrbits() : null;
+        }
+
+        /**
+         * @return the sub-samples of the pixels at an edge or null if the frame didn't supersample them
+         */
+        SampleBuffer getSamples() {
+            return supersampler != null ? supersampler.getSamples() : null;
+        }
+
+        /**
+         * @return true if the render was cancelled or a newer one was started, the image is incomplete then
+         */
+        boolean isCancelled() {
+            return cancelled || generation.isStale(renderGeneration);
+        }
+
+        /**
+         * Drops all tiles that didn't start yet, the others stop at their next row
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return number of tiles in a row of the image
+         */
+        int getColumns() {
+            return (options.width + RenderScheduler.TILE_SIZE - 1) / RenderScheduler.TILE_SIZE;
+        }
+
+        /**
+         * @return number of tiles of the whole image
+         */
+        int getTiles() {
+            return getColumns() * ((options.height + RenderScheduler.TILE_SIZE - 1) / RenderScheduler.TILE_SIZE);
+        }
+
+        /**
+         * Computes and colours a single tile, safe to call from several threads for different tiles.
+         * A cancelled render is checked for before every row, the tile is left incomplete then.
+         *
+         * @param index tile index in rows
+         */
+        void renderTile(int index) {
+            renderTile(index, 1, 0);
+        }
+
+        /**
+         * Computes and colours one pass of a single tile. The pass computes every step-th pixel in both directions
+         * and paints it as a block of step by step pixels, the pixels of the coarser pass before are already on
+         * the image and are left as they are. Only the row strategy has passes, subdivision always computes all.
+         *
+         * @param index   tile index in rows
+         * @param step    distance between the computed pixels, 1 for all of them
+         * @param coarser step of the pass before, 0 if there was none
+         */
+        void renderTile(int index, int step, int coarser) {
+            if (isCancelled()) {
+                return;
+            }
+
+            int x0 = index % getColumns() * RenderScheduler.TILE_SIZE;
+            int y0 = index / getColumns() * RenderScheduler.TILE_SIZE;
+            int width = Math.min(RenderScheduler.TILE_SIZE, options.width - x0);
+            int height = Math.min(RenderScheduler.TILE_SIZE, options.height - y0);
+
+            FractalKernel kernel = createKernel();
+            boolean relative = kernel.isRelative();
+
+            double[] xs = new double[width];
+            for (int x = 0; x < width; x++) {
+                xs[x] = relative ? transform.deltaX(x0 + x) : transform.convertX(x0 + x);
+            }
+            double[] ys = new double[height];
+            for (int y = 0; y < height; y++) {
+                ys[y] = relative ? transform.deltaY(y0 + y) : transform.convertY(y0 + y);
+            }
+
+            if (options.renderStrategy == RenderStrategy.SUBDIVISION) {
+                if (previous != null && previous.isTile(x0, y0, width, height)) {
+                    // a subdivided tile is only taken as a whole
+                    for (int y = y0; y < y0 + height; y++) {
+                        for (int x = x0; x < x0 + width; x++) {
+                            setIterations(x, y, 1, previous.getIterations(x, y));
+                        }
+                    }
+                    previous.reused.add((long) width * height);
+                } else {
+                    // the subdivision has no rows, every pixel checks instead
+                    var subdivision = new MarianiSilver(width, height, (x, y) -> {
+                        if (isCancelled()) {
+                            throw new CancellationException();
+                        }
+                        return kernel.iterate(xs[x], ys[y]);
+                    });
+                    int[] tileIterations;
+                    try {
+                        tileIterations = subdivision.render();
+                    } catch (CancellationException e) {
+                        return;
+                    }
+                    computed.add(subdivision.getComputed());
+
+                    for (int y = 0; y < height; y++) {
+                        for (int x = 0; x < width; x++) {
+                            setIterations(x0 + x, y0 + y, 1, tileIterations[y * width + x]);
+                        }
+                    }
+                }
+            } else {
+                // tiles start at multiples of the coarsest step, so their grids line up with the image
+                int[] every = columns(0, width, step);
+                int[] between = coarser > 0 ? columns(step, width, coarser) : every;
+                // in rows of the last render only the columns it didn't have are computed
+                int[] everyMissing = previous != null ? previous.missingColumns(x0, every) : every;
+                int[] betweenMissing = previous != null ? previous.missingColumns(x0, between) : between;
+                double[] everyXs = pick(xs, every);
+                double[] betweenXs = pick(xs, between);
+                double[] everyMissingXs = pick(xs, everyMissing);
+                double[] betweenMissingXs = pick(xs, betweenMissing);
+                int[] row = new int[every.length];
+                var resumable = orbits != null ? (ResumableKernel) kernel : null;
+                var orbit = orbits != null ? new EscapeTimeKernel.Orbit() : null;
+                var chunk = orbits != null ? new OrbitBuffer.Chunk() : null;
+                for (int y = 0; y < height; y += step) {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    // rows of the coarser pass already have every other pixel
+                    boolean refine = coarser > 0 && y % coarser == 0;
+                    int[] rowColumns = refine ? between : every;
+                    int[] computedColumns = rowColumns;
+                    double[] rowXs = refine ? betweenXs : everyXs;
+                    if (previous != null && previous.hasRow(y0 + y)) {
+                        for (int x : rowColumns) {
+                            if (previous.has(x0 + x, y0 + y)) {
+                                int iterationCount = previous.getIterations(x0 + x, y0 + y);
+                                setIterations(x0 + x, y0 + y, step, iterationCount);
+                                if (chunk != null && iterationCount == -1) {
+                                    keepPreviousOrbit(chunk, orbit, x0 + x, y0 + y);
+                                }
+                            }
+                        }
+                        computedColumns = refine ? betweenMissing : everyMissing;
+                        rowXs = refine ? betweenMissingXs : everyMissingXs;
+                        previous.reused.add(rowColumns.length - computedColumns.length);
+                    }
+
+                    if (chunk != null) {
+                        // one pixel after the other, the row loop doesn't hand out the orbits
+                        for (int i = 0; i < rowXs.length; i++) {
+                            orbit.clear();
+                            row[i] = resumable.resume(rowXs[i], ys[y], orbit);
+                            if (row[i] == -1 && orbit.isRunning()) {
+                                chunk.add((y0 + y) * options.width + x0 + computedColumns[i], orbit);
+                            }
+                        }
+                    } else if (rowXs.length > 0) {
+                        kernel.iterateRow(rowXs, ys[y], row);
+                    }
+                    for (int i = 0; i < computedColumns.length; i++) {
+                        setIterations(x0 + computedColumns[i], y0 + y, step, row[i]);
+                    }
+                    computed.add(computedColumns.length);
+                }
+                if (chunk != null) {
+                    orbits.add(chunk);
+                }
+            }
+
+            skipped.add(kernel.getSkipped());
+            if (kernel instanceof PerturbationKernel perturbation) {
+                rebases.add(perturbation.getRebases());
+            }
+
+            long done = System.nanoTime() - started;
+            firstTile.compareAndSet(0, done);
+            lastTile.accumulate(done);
+            if (tileListener != null) {
+                tileListener.tileDone(image, x0, y0, width, height);
+            }
+        }
+
+        /**
+         * Picks the kernel for the fractal type and the precision tier, every tile gets its own one
+         */
+        FractalKernel createKernel() {
+            double periodEpsilon = options.getKernelPeriodEpsilon();
+            boolean single = tier == PrecisionTier.FLOAT;
+
+            if (tier == PrecisionTier.PERTURBATION) {
+                return reference.copy();
+            } else if (tier == PrecisionTier.DOUBLE_DOUBLE) {
+                return new DoubleDoubleKernel(transform.gridCenterX(options.getPreciseCenterX()), transform.gridCenterY(options.getPreciseCenterY()), getConstantX(options), getConstantY(options), isJulia(options), options.iterations);
+            }
+
+            return switch (options.type) {
+                case MANDELBROT -> new MandelbrotKernel(options.power, options.iterations, periodEpsilon, vectorKernel, single);
+                case JULIA -> new JuliaKernel(getConstantX(options), getConstantY(options), options.power, options.iterations, periodEpsilon, vectorKernel, single);
+                case BURNING_SHIP -> new BurningShipKernel(options.power, options.iterations, periodEpsilon);
+                case TRICORN -> new TricornKernel(options.power, options.iterations, periodEpsilon);
+            };
+        }
+
+        /**
+         * Stores the iteration count of a pixel and paints it as a block of step by step pixels
+         */
+        private void setIterations(int x, int y, int step, int iterationCount) {
+            iterations[y * options.width + x] = iterationCount;
+            int pixel = palette[iterationCount + 1];
+            for (int by = y; by < Math.min(y + step, options.height); by++) {
+                Arrays.fill(image.getPixels(), by * options.width + x, by * options.width + Math.min(x + step, options.width), pixel);
+            }
+        }
+
+        /**
+         * Keeps the orbit of a pixel that is taken from the last render and reached its iterations
+         */
+        private void keepPreviousOrbit(OrbitBuffer.Chunk chunk, EscapeTimeKernel.Orbit orbit, int x, int y) {
+            if (!previous.hasOrbits()) {
+                orbits.markMissing();
+            } else if (previous.loadOrbit(x, y, orbit)) {
+                chunk.add(y * options.width + x, orbit);
+            }
+        }
+
+        /**
+         * @return every stride-th column of a tile starting at first
+         */
+        private static int[] columns(int first, int width, int stride) {
+            int[] columns = new int[Math.max(0, (width - first + stride - 1) / stride)];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = first + i * stride;
+            }
+            return columns;
+        }
+
+        private static double[] pick(double[] values, int[] columns) {
+            if (columns.length == values.length) {
+                return values;
+            }
+            double[] picked = new double[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                picked[i] = values[columns[i]];
+            }
+            return picked;
+        }
+
+        private static boolean isJulia(FractalRenderOptions options) {
+            return options.type == FractalType.JULIA;
+        }
+
+        private static double getConstantX(FractalRenderOptions options) {
+            return isJulia(options) ? ((JuliaRenderOptions) options).getConstantX() : 0;
+        }
+
+        private static double getConstantY(FractalRenderOptions options) {
+            return isJulia(options) ? ((JuliaRenderOptions) options).getConstantY() : 0;
+        }
+    }
+
+    double power;
+    int iterations;
+    double x;
+    double y;
+    double zoom;
+    ColourModes colourMode;
+    RenderMode renderMode;
+    int width, height;
+    boolean periodicityCheck = true;
+    boolean vectorized = true;
+    RenderStrategy renderStrategy = RenderStrategy.ROWS;
+    BigDecimal preciseX, preciseY;
+    double floatZoom = FractalRenderOptions.DEFAULT_FLOAT_ZOOM;
+    double doubleDoubleZoom = FractalRenderOptions.DEFAULT_DOUBLE_DOUBLE_ZOOM;
+    double perturbationZoom = FractalRenderOptions.DEFAULT_PERTURBATION_ZOOM;
+    RenderGeneration generation = new RenderGeneration();
+    RenderHistory history = new RenderHistory();
+    RenderCache cache;
+    boolean progressive;
+    boolean resumable;
+    boolean autoIterations;
+    int antialiasing;
+    TileListener tileListener;
+
+    protected FractalRenderer(double power, int iterations, double x, double y, double zoom, ColourModes colourMode, RenderMode renderMode) {
+        this.power = power;
+        this.iterations = iterations;
+        this.x = x;
+        this.y = y;
+        this.zoom = zoom;
+        this.colourMode = colourMode;
+        this.renderMode = renderMode;
+    }
+
+    /**
+     * Options of a fragment of the image, everything set on the renderer is applied afterwards
+     *
+     * @param fragmentNumber index of the fragment
+     * @param totalFragments number of fragments the image is split into
+     * @return options of the fractal type
+     */
+    protected abstract FractalRenderOptions createOptions(int fragmentNumber, int totalFragments);
+
+    @Override
+    public Task<SimpleImage> createTask() {
+        // taken right away, so the render supersedes the older ones as soon as it is started
+        long renderGeneration = generation.next();
+        return new Task<SimpleImage>() {
+            @Override
+            protected SimpleImage call() {
+                var image = renderLocal(renderGeneration);
+                if (image == null) {
+                    // superseded, it must not count as a finished render
+                    cancel(false);
+                }
+                return image;
+            }
+        };
+    }
+
+    public void setBounds(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setPeriodicityCheck(boolean periodicityCheck) {
+        this.periodicityCheck = periodicityCheck;
+    }
+
+    public void setVectorized(boolean vectorized) {
+        this.vectorized = vectorized;
+    }
+
+    public void setRenderStrategy(RenderStrategy renderStrategy) {
+        this.renderStrategy = renderStrategy;
+    }
+
+    /**
+     * Sets the center with more precision than a double has, needed for deep zoom
+     */
+    public void setPreciseCenter(BigDecimal preciseX, BigDecimal preciseY) {
+        this.preciseX = preciseX;
+        this.preciseY = preciseY;
+    }
+
+    /**
+     * Shares the generation with other renderers of the same pane, starting a render supersedes all
+     * renders of the others that are still running
+     */
+    public void setGeneration(RenderGeneration generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Shares the last finished render with other renderers of the same pane, a render that is only
+     * shifted by whole pixels against it computes just the pixels that weren't in it
+     */
+    public void setHistory(RenderHistory history) {
+        this.history = history;
+    }
+
+    /**
+     * Shares recent renders with the other renderers, a render that is in the cache is only coloured
+     *
+     * @param cache cache of all panes or null to always compute
+     */
+    public void setCache(RenderCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Sets the zooms at which the {@link PrecisionTier} changes
+     */
+    public void setPrecisionZooms(double floatZoom, double doubleDoubleZoom, double perturbationZoom) {
+        this.floatZoom = floatZoom;
+        this.doubleDoubleZoom = doubleDoubleZoom;
+        this.perturbationZoom = perturbationZoom;
+    }
+
+    /**
+     * Renders coarse passes first, each pass only computes the pixels the ones before haven't.
+     * Only the {@link RenderStrategy#ROWS} strategy has passes.
+     */
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    /**
+     * Keeps the orbits of the pixels that reach the iterations, raising the iterations of the same view
+     * only continues them. Only for plain doubles without the vector kernel and the row strategy.
+     */
+    public void setResumable(boolean resumable) {
+        this.resumable = resumable;
+    }
+
+    /**
+     * Picks the iterations from the zoom and a probe of the view instead of taking the ones of the renderer,
+     * the log has the chosen ones
+     */
+    public void setAutoIterations(boolean autoIterations) {
+        this.autoIterations = autoIterations;
+    }
+
+    /**
+     * Supersamples the pixels at an edge of the image, the ones with a neighbour of another iteration count
+     *
+     * @param antialiasing sub-samples per axis of such a pixel, 1 turns it off, limited to {@link #MAX_ANTIALIASING}
+     */
+    public void setAntialiasing(int antialiasing) {
+        this.antialiasing = Math.max(1, Math.min(MAX_ANTIALIASING, antialiasing));
+    }
+
+    /**
+     * Gets the tiles of the renders as soon as they are done
+     */
+    public void setTileListener(TileListener tileListener) {
+        this.tileListener = tileListener;
+    }
+
+    /**
+     * @param iterations iterations of the render, the automatic budget may differ from the ones set on the renderer
+     * @return options of the render to find it in the cache and the history, the colour is applied afterwards
+     * and equal centers may differ in their scale
+     */
+    private FractalRenderOptions createKey(int iterations) {
+        FractalRenderOptions key = createLocalOptions();
+        key.setIterations(iterations);
+        key.setMode(null);
+        key.setPreciseCenterX(key.getPreciseCenterX().stripTrailingZeros());
+        key.setPreciseCenterY(key.getPreciseCenterY().stripTrailingZeros());
+        return key;
+    }
+
+    /**
+     * @return options of the whole image with everything set on the renderer
+     */
+    private FractalRenderOptions createLocalOptions() {
+        var opts = createOptions(0, 1);
+        opts.setPeriodicityCheck(periodicityCheck);
+        opts.setVectorized(vectorized);
+        opts.setRenderStrategy(renderStrategy);
+        opts.setPreciseCenterX(preciseX);
+        opts.setPreciseCenterY(preciseY);
+        opts.setFloatZoom(floatZoom);
+        opts.setDoubleDoubleZoom(doubleDoubleZoom);
+        opts.setPerturbationZoom(perturbationZoom);
+        opts.setAntialiasing(antialiasing);
+        return opts;
+    }
+
+    //Renders local, blocks until finished
+    public SimpleImage renderLocal() {
+        return renderLocal(generation.next());
+    }
+
+    /**
+     * Renders on the {@link RenderScheduler}, blocks until finished
+     *
+     * @param renderGeneration generation of this render
+     * @return the image or null if the render was cancelled or superseded
+     */
+    private SimpleImage renderLocal(long renderGeneration) {
+        int renderId = (int) (Math.random() * Short.MAX_VALUE);
+
+        Frame frame = null;
+        try {
+            var opts = createLocalOptions();
+
+            FractalType type = opts.type;
+            if (DEBUG_PRINT) {
+                System.out.printf("Rendering %s locally |%04x|\n", type, renderId);
+            }
+
+            String id = String.format("|%04x|", renderId);
+
+            var last = history.getLast();
+            var transform = new SpaceTransform(opts.width, opts.height, opts.zoom, opts.centerX, opts.centerY);
+            // reference orbit the probe of the automatic iterations computed, the frame continues it
+            PerturbationKernel reference = null;
+            if (autoIterations) {
+                var budget = chooseIterations(id + " " + type, last, transform, generation, renderGeneration);
+                if (budget.iterations() < 0) {
+                    RenderLogger.log(id, type, "superseded during the probe");
+                    return null;
+                }
+                opts.setIterations(budget.iterations());
+                reference = budget.reference();
+            }
+            int renderIterations = opts.iterations;
+
+            FractalRenderOptions key = createKey(renderIterations);
+
+            if (last != null && last.getOptions().equals(key)) {
+                RenderLogger.log(id, type, "only the colour changed since the last render");
+                return recolour(id + " " + type, last, renderGeneration);
+            }
+            if (cache != null) {
+                var cached = cache.get(key);
+                RenderLogger.log(id, type, cached != null ? "cache hit," : "cache miss,", cache);
+                if (cached != null) {
+                    history.setLast(cached);
+                    return recolour(id + " " + type, cached, renderGeneration);
+                }
+            }
+
+            if (resumable && last != null && last.getOrbits() != null && last.getOptions().iterations < renderIterations) {
+                var fewer = createKey(last.getOptions().iterations);
+                if (fewer.equals(last.getOptions())) {
+                    frame = new Frame(colourMode, opts, generation, renderGeneration);
+                    if (frame.canKeepOrbits()) {
+                        return resume(id + " " + type, frame, last, key);
+                    }
+                }
+            }
+
+            frame = new Frame(colourMode, opts, transform, reference, generation, renderGeneration);
+            frame.tileListener = tileListener;
+            if (resumable && frame.canKeepOrbits()) {
+                frame.orbits = new KeptOrbits(frame);
+            }
+            // a shifted frame has few pixels to compute, the coarse passes would only delay them
+            long reusable = frame.reuse(history.getLast());
+            boolean shifted = reusable * 2 > (long) width * height;
+            int[] steps = progressive && !shifted && renderStrategy == RenderStrategy.ROWS ? PROGRESSIVE_STEPS : new int[]{1};
+            for (int pass = 0; pass < steps.length; pass++) {
+                int step = steps[pass];
+                int coarser = pass > 0 ? steps[pass - 1] : 0;
+                Frame current = frame;
+                String label = steps.length > 1 ? id + " " + type + " pass 1/" + step * step : id + " " + type;
+                RenderScheduler.run(label, current.getTiles(), tile -> current.renderTile(tile, step, coarser), current::isCancelled);
+                if (frame.isCancelled()) {
+                    RenderLogger.log(id, type, "superseded, image dropped");
+                    return null;
+                }
+            }
+
+            if (frame.skipped.sum() > 0) {
+                RenderLogger.log(id, type, "interior check skipped", frame.skipped.sum(), "of", width * height, "pixels");
+            }
+            RenderLogger.log(id, type, renderStrategy, "computed", frame.computed.sum(), "of", width * height, "pixels");
+            if (frame.previous != null) {
+                RenderLogger.log(id, type, "reused", frame.previous.reused.sum(), "pixels of the last render, zoomed", 1 / frame.previous.getScale(), "times");
+            }
+            RenderLogger.log(id, type, "precision", frame.tier, "at zoom", zoom);
+            RenderLogger.log(id, type, "first tile after", frame.firstTile.get() / 1000000, "ms, last tile after", frame.lastTile.get() / 1000000, "ms");
+
+            if (frame.reference != null) {
+                RenderLogger.log(id, type, "perturbation reference", frame.reference.getReferenceIterations(), "iterations, series skipped", frame.reference.getSeriesIterations(), "iterations,", frame.rebases.sum(), "rebases");
+            }
+
+            var orbits = frame.getOrbits();
+            if (orbits != null) {
+                RenderLogger.log(id, type, "kept", orbits.getCount(), "orbits that reached", renderIterations, "iterations");
+            }
+
+            long late = autoIterations ? Arrays.stream(frame.iterations).filter(iterationCount -> iterationCount >= renderIterations / 2).count() : 0;
+            if (late > LATE_ESCAPES * width * height && orbits != null && renderIterations < MAX_AUTO_ITERATIONS) {
+                // the probe missed pixels that need more, the final image continues the orbits with twice the budget
+                RenderLogger.log(id, type, "auto iterations raised from", renderIterations, "for", late, "pixels escaped late");
+                var fewer = new IterationBuffer(key, frame.tier, frame.iterations, orbits, null);
+                var raised = createLocalOptions();
+                raised.setIterations(Math.min(MAX_AUTO_ITERATIONS, renderIterations * 2));
+                frame = new Frame(colourMode, raised, generation, renderGeneration);
+                return resume(id + " " + type, frame, fewer, createKey(raised.iterations));
+            }
+
+            if (!supersample(id + " " + type, frame)) {
+                return null;
+            }
+            var buffer = new IterationBuffer(key, frame.tier, frame.iterations, orbits, frame.getSamples());
+            history.setLast(buffer);
+            if (cache != null) {
+                cache.put(key, buffer);
+            }
+            return frame.image;
+        } catch (CancellationException e) {
+
+        } catch (InterruptedException e) {
+            // the task was cancelled, tiles still running or queued on the pool have to stop as well
+            if (frame != null) {
+                frame.cancel();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return null;
+    }
+
+    /**
+     * Renders the view at any size in bands of rows and hands them to an encoder, the image is never in memory
+     * as a whole. A band is rendered on the {@link RenderScheduler} while the one before is encoded on another
+     * thread, the height of the bands keeps both of them within the memory budget. Everything set on the
+     * renderer applies except the progressive passes, the history and the cache.
+     *
+     * @param encoder      gets the rows of the image from the top to the bottom, closed once they are written
+     * @param width        width of the image
+     * @param height       height of the image
+     * @param memoryBudget bytes the bands may take
+     * @param progress     gets the share of the rows that are rendered after every band
+     * @throws CancellationException if a band or its supersampling was cancelled, no later band is written
+     */
+    public void export(ImageEncoder encoder, int width, int height, long memoryBudget, DoubleConsumer progress) throws IOException, InterruptedException, ExecutionException {
+        var opts = createLocalOptions();
+        String id = String.format("|%04x| %s export", (int) (Math.random() * Short.MAX_VALUE), opts.type);
+        // a generation of its own, renders of the panes don't supersede the export
+        var exportGeneration = new RenderGeneration();
+        long renderGeneration = exportGeneration.next();
+        var transform = new SpaceTransform(width, height, opts.zoom, opts.centerX, opts.centerY);
+        // every band shares the reference orbit, the one of the probe if it computed one
+        PerturbationKernel reference = null;
+        if (autoIterations) {
+            // the budget of the pane if it shows the view, every band gets the same
+            var budget = chooseIterations(id, history.getLast(), transform, exportGeneration, renderGeneration);
+            opts.setIterations(budget.iterations());
+            reference = budget.reference();
+        }
+        // the pixel and its iteration count, in the worst case every pixel is at an edge and has samples
+        int samples = opts.antialiasing > 1 ? opts.antialiasing * opts.antialiasing : 0;
+        long pixelBytes = 2L * Integer.BYTES + (samples > 0 ? (samples + 1L) * Integer.BYTES : 0);
+        // the edges of the rows at the border of a band depend on the rows next to it
+        int margin = samples > 0 ? 1 : 0;
+        long budgetRows = memoryBudget / 2 / (pixelBytes * width) - 2 * margin;
+        if (budgetRows < 1) {
+            RenderLogger.log(id, "a single row of", width, "pixels doesn't fit into the budget of", memoryBudget, "bytes");
+        }
+        int rows = (int) Math.max(1, Math.min(height, budgetRows >= RenderScheduler.TILE_SIZE ? budgetRows / RenderScheduler.TILE_SIZE * RenderScheduler.TILE_SIZE : budgetRows));
+        int bands = (height + rows - 1) / rows;
+        RenderLogger.log(id, width + "x" + height, "in", bands, "bands of", rows, "rows,", 2 * (rows + 2L * margin) * width * pixelBytes / (1 << 20), "MB of a budget of", memoryBudget / (1 << 20), "MB");
+
+        long start = System.nanoTime();
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        Future<?> written = CompletableFuture.completedFuture(null);
+        Future<?> closed;
+        Frame frame = null;
+        try {
+            for (int band = 0; band < bands; band++) {
+                int first = band * rows;
+                int count = Math.min(rows, height - first);
+                int top = Math.max(0, first - margin);
+                var bandOptions = createLocalOptions();
+                bandOptions.setIterations(opts.iterations);
+                bandOptions.setWidth(width);
+                bandOptions.setHeight(Math.min(height, first + count + margin) - top);
+                frame = new Frame(colourMode, bandOptions, transform.band(top), reference, exportGeneration, renderGeneration);
+                reference = frame.reference;
+
+                String label = id + " band " + (band + 1) + "/" + bands;
+                RenderScheduler.run(label, frame.getTiles(), frame::renderTile, frame::isCancelled);
+                // a band with missing pixels or half of its samples must not be written
+                if (frame.isCancelled() || !supersample(label, frame)) {
+                    RenderLogger.log(label, "cancelled, export aborted");
+                    throw new CancellationException("export cancelled in " + label);
+                }
+
+                // only the band before is still in memory, it has to be written before the next one is rendered
+                await(written);
+                int[] pixels = frame.image.getPixels();
+                written = writer.submit(() -> {
+                    encoder.writeRows(pixels, (first - top) * width, count);
+                    return null;
+                });
+                progress.accept((double) (first + count) / height);
+            }
+        } catch (InterruptedException e) {
+            // tiles still running or queued on the pool have to stop as well
+            if (frame != null) {
+                frame.cancel();
+            }
+            throw e;
+        } finally {
+            // after the last band the writer got, also if the export failed
+            closed = writer.submit(() -> {
+                encoder.close();
+                return null;
+            });
+            writer.shutdown();
+        }
+        await(written);
+        await(closed);
+        RenderLogger.log(id, width + "x" + height, "done after", (System.nanoTime() - start) / 1000000, "ms");
+    }
+
+    /**
+     * Waits for a task of the writer of an export
+     */
+    private static void await(Future<?> task) throws IOException, InterruptedException, ExecutionException {
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Picks the iterations of an automatic budget. A render of the view the pane already shows keeps its iterations.
+     * Otherwise the budget starts from the zoom and is doubled while a probe of every {@link #PROBE_STEP}-th pixel
+     * has pixels that escape late or none that escape at all, and lowered if all pixels escape early. A budget
+     * close to the one of the last render is replaced by it, so a shifted render can still take its pixels.
+     * At the perturbation tier the probes share one reference orbit at the center of the image, every doubling
+     * only continues it, and the image takes it as well.
+     *
+     * @param label            prefix of the log lines
+     * @param last             last render of the pane or null
+     * @param image            transform of the image the budget is for
+     * @param generation       generation the render belongs to
+     * @param renderGeneration generation of this render
+     * @return the iterations, -1 if the render was superseded, and the reference if the probes computed one
+     */
+    private AutoIterations chooseIterations(String label, IterationBuffer last, SpaceTransform image, RenderGeneration generation, long renderGeneration) throws InterruptedException, ExecutionException {
+        int lastIterations = last != null ? last.getOptions().iterations : 0;
+        if (last != null && createKey(lastIterations).equals(last.getOptions())) {
+            return new AutoIterations(lastIterations, null);
+        }
+
+        int budget = MIN_AUTO_ITERATIONS << (int) Math.min(Math.max(0, zoom) / ZOOM_PER_DOUBLING, Integer.numberOfTrailingZeros(MAX_AUTO_ITERATIONS / MIN_AUTO_ITERATIONS));
+        PerturbationKernel reference = null;
+        int probed;
+        int inside;
+        int late;
+        int latest;
+        while (true) {
+            var opts = createLocalOptions();
+            opts.setIterations(budget);
+            if (reference == null && opts.getPrecisionTier() == PrecisionTier.PERTURBATION) {
+                try {
+                    reference = Frame.createReference(opts, image, () -> generation.isStale(renderGeneration));
+                } catch (CancellationException e) {
+                    return new AutoIterations(-1, null);
+                }
+            }
+            opts.setWidth(Math.max(2, width / PROBE_STEP));
+            opts.setHeight(Math.max(2, height / PROBE_STEP));
+            // the probe iterates around the center of the image's grid, up to half a probe pixel off its own
+            var probe = new Frame(colourMode, opts, new SpaceTransform(opts.width, opts.height, opts.zoom, opts.centerX, opts.centerY), reference, generation, renderGeneration);
+            RenderScheduler.run(label + " probe", probe.getTiles(), probe::renderTile, probe::isCancelled);
+            if (probe.isCancelled()) {
+                return new AutoIterations(-1, null);
+            }
+            reference = probe.reference;
+
+            probed = probe.iterations.length;
+            inside = 0;
+            late = 0;
+            latest = 0;
+            for (int iterationCount : probe.iterations) {
+                if (iterationCount < 0) {
+                    inside++;
+                } else if (iterationCount >= budget / 2) {
+                    late++;
+                }
+                latest = Math.max(latest, iterationCount);
+            }
+            // a view without a single escape may still be full of slow pixels
+            if (late <= LATE_ESCAPES * probed && inside < probed || inside == 0 || budget >= MAX_AUTO_ITERATIONS) {
+                break;
+            }
+            budget = Math.min(MAX_AUTO_ITERATIONS, budget * 2);
+        }
+        if (inside == 0 && latest < budget / 4) {
+            budget = Math.max(MIN_AUTO_ITERATIONS, Integer.highestOneBit(Math.max(1, latest)) << 2);
+        }
+
+        int chosen = lastIterations > 0 && budget >= lastIterations / 2 && budget <= lastIterations * 2 ? lastIterations : budget;
+        RenderLogger.log(label, "auto iterations", chosen, "at zoom", zoom, "probe budget", budget + ",", String.format("%.1f%% not escaped, %.2f%% escaped late of %d pixels", 100.0 * inside / probed, 100.0 * late / probed, probed));
+        return new AutoIterations(chosen, reference);
+    }
+
+    /**
+     * Iterations picked by {@link #chooseIterations} and the reference orbit its probes computed, null if they didn't
+     */
+    private record AutoIterations(int iterations, PerturbationKernel reference) {
+    }
+
+    /**
+     * Continues the orbits of a render of the same view with fewer iterations, the other pixels keep their counts
+     *
+     * @param label prefix of the log lines
+     * @param frame frame of the render
+     * @param last  render with fewer iterations that has orbits
+     * @param key   options of the render without the colour mode
+     * @return the image or null if the render was superseded
+     */
+    private SimpleImage resume(String label, Frame frame, IterationBuffer last, FractalRenderOptions key) throws InterruptedException, ExecutionException {
+        var kept = new KeptOrbits(frame);
+        frame.orbits = kept;
+        int count = kept.resume(last);
+        int tasks = (count + RESUMED_ORBITS - 1) / RESUMED_ORBITS;
+        RenderScheduler.run(label + " resume", tasks, task -> kept.resumeOrbits(task * RESUMED_ORBITS, Math.min(RESUMED_ORBITS, count - task * RESUMED_ORBITS)), frame::isCancelled);
+        if (frame.isCancelled()) {
+            RenderLogger.log(label, "superseded, image dropped");
+            return null;
+        }
+
+        var orbits = frame.getOrbits();
+        RenderLogger.log(label, "continued", count, "orbits from", last.getOptions().iterations, "to", frame.options.iterations, "iterations,", orbits.getCount(), "still running");
+        if (!supersample(label, frame)) {
+            return null;
+        }
+
+        var buffer = new IterationBuffer(key, frame.tier, frame.iterations, orbits, frame.getSamples());
+        history.setLast(buffer);
+        if (cache != null) {
+            cache.put(key, buffer);
+        }
+        return recolour(label, buffer, frame.renderGeneration);
+    }
+
+    /**
+     * Supersamples the pixels at an edge of a frame whose iteration counts are done, does nothing if antialiasing is off
+     *
+     * @param label prefix of the log lines
+     * @param frame frame of the render
+     * @return false if the render was superseded
+     */
+    private boolean supersample(String label, Frame frame) throws InterruptedException, ExecutionException {
+        if (frame.options.antialiasing <= 1) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        var supersampler = new Supersampler(frame);
+        frame.supersampler = supersampler;
+        RenderScheduler.run(label + " supersample", frame.getTiles(), supersampler::supersampleTile, frame::isCancelled);
+        if (frame.isCancelled()) {
+            RenderLogger.log(label, "superseded, image dropped");
+            return false;
+        }
+
+        int pixels = frame.options.width * frame.options.height;
+        long count = supersampler.supersampled.sum();
+        RenderLogger.log(label, "supersampled", count, "of", pixels, "pixels", String.format("(%.1f%%)", 100.0 * count / pixels) + ",", frame.options.antialiasing * frame.options.antialiasing, "samples each,", supersampler.reusedSamples.sum(), "taken from the last render, took", (System.nanoTime() - start) / 1000000, "ms");
+        return true;
+    }
+
+    /**
+     * Colours the iteration counts of an earlier render again, in bands of rows on the {@link RenderScheduler}.
+     * Every band is handed to the tile listener once it is coloured.
+     *
+     * @param label            prefix of the log line
+     * @param buffer           iteration counts of the render
+     * @param renderGeneration generation of this render
+     * @return the image or null if the render was superseded
+     */
+    private SimpleImage recolour(String label, IterationBuffer buffer, long renderGeneration) throws InterruptedException, ExecutionException {
+        int width = buffer.getOptions().width;
+        int height = buffer.getOptions().height;
+        var image = new SimpleImage(width, height);
+        int bands = (height + RenderScheduler.TILE_SIZE - 1) / RenderScheduler.TILE_SIZE;
+        RenderScheduler.run(label + " recolour", bands, band -> {
+            int first = band * RenderScheduler.TILE_SIZE;
+            int count = Math.min(RenderScheduler.TILE_SIZE, height - first);
+            buffer.colourRows(image, colourMode, first, count);
+            if (tileListener != null) {
+                tileListener.tileDone(image, 0, first, width, count);
+            }
+        }, () -> generation.isStale(renderGeneration));
+        return generation.isStale(renderGeneration) ? null : image;
+    }
+}
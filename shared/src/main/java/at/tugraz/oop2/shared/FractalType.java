@@ -2,5 +2,7 @@ package at.tugraz.oop2.shared;
 
 public enum FractalType {
     MANDELBROT,
-    JULIA
+    JULIA,
+    BURNING_SHIP,
+    TRICORN
 }
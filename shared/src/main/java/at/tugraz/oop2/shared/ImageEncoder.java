@@ -0,0 +1,42 @@
+package at.tugraz.oop2.shared;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes an image row after row, from the top to the bottom, so it never has to be in memory as a whole.
+ * Closing the encoder finishes the file and closes the stream.
+ */
+public interface ImageEncoder extends Closeable {
+
+    /**
+     * @param pixels packed ARGB pixels in rows as wide as the image, see {@link SimpleImage#getPixels()}
+     * @param offset index of the first pixel of the first row
+     * @param rows   number of rows
+     */
+    void writeRows(int[] pixels, int offset, int rows) throws IOException;
+
+    /**
+     * Opens an encoder for the format of the file extension, {@code .png} or {@code .rgb} for raw RGB bytes
+     *
+     * @param file   file to write, replaced if it exists
+     * @param width  width of the image
+     * @param height height of the image
+     * @return the encoder
+     */
+    static ImageEncoder open(Path file, int width, int height) throws IOException {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("the image needs at least one pixel: " + width + "x" + height);
+        }
+        String name = file.getFileName().toString().toLowerCase();
+        if (name.endsWith(".png")) {
+            return new PngEncoder(new BufferedOutputStream(Files.newOutputStream(file)), width, height);
+        } else if (name.endsWith(".rgb") || name.endsWith(".raw")) {
+            return new RawRgbEncoder(new BufferedOutputStream(Files.newOutputStream(file)), width);
+        }
+        throw new IllegalArgumentException("unknown image format, use .png or .rgb: " + file);
+    }
+}
@@ -0,0 +1,200 @@
+package at.tugraz.oop2.shared;
+
+import lombok.Getter;
+
+/**
+ * Iteration counts of every pixel of a finished render. A later render of the same fractal takes the pixels
+ * that lie exactly on a pixel of this one: after a shift by whole pixels, like every step of a drag, most of
+ * them, after zooming in or out by a power of two the ones on the coarser of the two pixel grids.
+ */
+public class IterationBuffer {
+
+    /**
+     * Largest zoom in levels between a render and the buffer that still maps pixels, the grid indices overflow beyond
+     */
+    private static final int MAX_LEVELS = 16;
+
+    /**
+     * Pixels of a render that are on a pixel of the buffer, a pixel is if both its column and its row are
+     */
+    public static class PixelMap {
+        /**
+         * Column of the buffer for every column of the render, -1 if it is in between
+         */
+        @Getter
+        private final int[] columns;
+
+        /**
+         * Row of the buffer for every row of the render, -1 if it is in between
+         */
+        @Getter
+        private final int[] rows;
+
+        /**
+         * Size of a pixel of the render in pixels of the buffer
+         */
+        @Getter
+        private final double scale;
+
+        PixelMap(int[] columns, int[] rows, double scale) {
+            this.columns = columns;
+            this.rows = rows;
+            this.scale = scale;
+        }
+
+        /**
+         * @return number of pixels of the render that are on a pixel of the buffer
+         */
+        public long getCount() {
+            return (long) count(columns) * count(rows);
+        }
+
+        private static int count(int[] indices) {
+            int count = 0;
+            for (int index : indices) {
+                if (index >= 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    @Getter
+    private final FractalRenderOptions options;
+
+    @Getter
+    private final PrecisionTier tier;
+
+    /**
+     * Iteration counts in rows
+     */
+    @Getter
+    private final int[] iterations;
+
+    /**
+     * Orbits of the pixels that reached the maximum iterations, null if the render didn't keep them
+     */
+    @Getter
+    private final OrbitBuffer orbits;
+
+    /**
+     * Sub-samples of the pixels at an edge, null if the render didn't supersample them
+     */
+    @Getter
+    private final SampleBuffer samples;
+
+    public IterationBuffer(FractalRenderOptions options, PrecisionTier tier, int[] iterations) {
+        this(options, tier, iterations, null, null);
+    }
+
+    public IterationBuffer(FractalRenderOptions options, PrecisionTier tier, int[] iterations, OrbitBuffer orbits, SampleBuffer samples) {
+        this.options = options;
+        this.tier = tier;
+        this.iterations = iterations;
+        this.orbits = orbits;
+        this.samples = samples;
+    }
+
+    /**
+     * @return memory the iteration counts, orbits and samples take
+     */
+    public long getBytes() {
+        return (long) iterations.length * Integer.BYTES + (orbits != null ? orbits.getBytes() : 0) + (samples != null ? samples.getBytes() : 0);
+    }
+
+    /**
+     * Colours the iteration counts
+     *
+     * @param colourMode colours of the image
+     * @return new image
+     */
+    public SimpleImage toImage(ColourModes colourMode) {
+        var image = new SimpleImage(options.width, options.height);
+        colourRows(image, colourMode, 0, options.height);
+        return image;
+    }
+
+    /**
+     * Colours the iteration counts of some rows, different rows can be coloured at the same time.
+     * Pixels with samples get their average colour.
+     *
+     * @param image      image of the size of the buffer
+     * @param colourMode colours of the image
+     * @param first      first row
+     * @param count      number of rows
+     */
+    public void colourRows(SimpleImage image, ColourModes colourMode, int first, int count) {
+        int[] pixels = image.getPixels();
+        int[] palette = colourMode.getPalette(options.iterations);
+        for (int i = first * options.width; i < (first + count) * options.width; i++) {
+            pixels[i] = samples != null && samples.has(i) ? samples.colour(i, palette) : palette[iterations[i] + 1];
+        }
+    }
+
+    /**
+     * Finds the pixels of a render that lie on a pixel of this buffer
+     *
+     * @param other options of the render
+     * @param tier  precision the render is computed in
+     * @return the pixels or null if the render shows another fractal or size, computes its counts another way,
+     * its pixels aren't a power of two smaller or larger, or none of them is on a pixel of the buffer
+     */
+    public PixelMap map(FractalRenderOptions other, PrecisionTier tier) {
+        // the relative kernels iterate around the center, after a pan the same pixel is another point to them
+        if (!sameFractal(other, tier) || tier == PrecisionTier.DOUBLE_DOUBLE || tier == PrecisionTier.PERTURBATION) {
+            return null;
+        }
+
+        var transform = new SpaceTransform(options.width, options.height, options.zoom, options.centerX, options.centerY);
+        var otherTransform = new SpaceTransform(other.width, other.height, other.zoom, other.centerX, other.centerY);
+
+        // a pixel of the render is 2^levels pixels of the buffer
+        int levels = Math.getExponent(otherTransform.scaleX) - Math.getExponent(transform.scaleX);
+        if (Math.abs(levels) > MAX_LEVELS || otherTransform.scaleX != Math.scalb(transform.scaleX, levels)
+                || otherTransform.scaleY != Math.scalb(transform.scaleY, levels)) {
+            return null;
+        }
+
+        int[] columns = map(otherTransform.gridX, transform.gridX, levels, other.width, options.width);
+        int[] rows = map(otherTransform.gridY, transform.gridY, levels, other.height, options.height);
+        var map = new PixelMap(columns, rows, Math.scalb(1.0, levels));
+        return map.getCount() > 0 ? map : null;
+    }
+
+    /**
+     * Maps the pixels of one axis by their index on the grid of the {@link SpaceTransform}, a pixel is only
+     * taken if it is on exactly the same point
+     *
+     * @param first       grid index of the first pixel of the render
+     * @param bufferFirst grid index of the first pixel of the buffer
+     * @param levels      a pixel of the render is 2^levels pixels of the buffer
+     */
+    private static int[] map(long first, long bufferFirst, int levels, int length, int bufferLength) {
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            long point = first + i;
+            long index = -1;
+            if (levels >= 0) {
+                index = (point << levels) - bufferFirst;
+            } else if ((point & (1L << -levels) - 1) == 0) {
+                index = (point >> -levels) - bufferFirst;
+            }
+            indices[i] = index >= 0 && index < bufferLength ? (int) index : -1;
+        }
+        return indices;
+    }
+
+    private boolean sameFractal(FractalRenderOptions other, PrecisionTier tier) {
+        if (this.tier != tier || options.type != other.type || options.width != other.width || options.height != other.height
+                || options.power != other.power || options.iterations != other.iterations
+                // subdivision fills guessed regions and the periodicity check stops orbits early, both change counts
+                || options.renderStrategy != other.renderStrategy || options.getKernelPeriodEpsilon() != other.getKernelPeriodEpsilon()) {
+            return false;
+        }
+        if (options instanceof JuliaRenderOptions julia && other instanceof JuliaRenderOptions otherJulia) {
+            return julia.getConstantX() == otherJulia.getConstantX() && julia.getConstantY() == otherJulia.getConstantY();
+        }
+        return true;
+    }
+}
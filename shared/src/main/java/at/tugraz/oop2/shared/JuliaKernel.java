@@ -0,0 +1,70 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Julia set, z starts at the point and c is a constant.
+ * Rows go through the {@link VectorKernel} if there is one for the power.
+ */
+public final class JuliaKernel implements ResumableKernel {
+    private final double constantX;
+    private final double constantY;
+    private final double power;
+    private final int maxIterations;
+    private final double periodEpsilon;
+    private final VectorKernel vectorKernel;
+    private final boolean single;
+
+    /**
+     * @param constantX     real part of the constant
+     * @param constantY     imaginary part of the constant
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @param vectorKernel  kernel for whole rows, null to iterate every point on its own
+     * @param single        if the vector kernel should use floats
+     */
+    public JuliaKernel(double constantX, double constantY, double power, int maxIterations, double periodEpsilon, VectorKernel vectorKernel, boolean single) {
+        this.constantX = constantX;
+        this.constantY = constantY;
+        this.power = power;
+        this.maxIterations = maxIterations;
+        this.periodEpsilon = periodEpsilon;
+        this.vectorKernel = vectorKernel != null && vectorKernel.supports(power) ? vectorKernel : null;
+        this.single = single;
+    }
+
+    @Override
+    public int iterate(double x, double y) {
+        return EscapeTimeKernel.julia(x, y, constantX, constantY, power, maxIterations, periodEpsilon);
+    }
+
+    /**
+     * @return false if rows go through the vector kernel, the orbits are only continued one point after the other
+     */
+    @Override
+    public boolean isResumable() {
+        return vectorKernel == null;
+    }
+
+    @Override
+    public int resume(double x, double y, EscapeTimeKernel.Orbit orbit) {
+        if (orbit.iterations == 0) {
+            if (x * x + y * y > 4) {
+                return 0;
+            }
+            orbit.start(x, y);
+        }
+        return EscapeTimeKernel.resume(constantX, constantY, power, maxIterations, periodEpsilon, orbit);
+    }
+
+    @Override
+    public void iterateRow(double[] xs, double y, int[] out) {
+        if (vectorKernel != null) {
+            vectorKernel.juliaRow(xs, y, constantX, constantY, single, maxIterations, periodEpsilon, out);
+            return;
+        }
+
+        for (int x = 0; x < xs.length; x++) {
+            out[x] = iterate(xs[x], y);
+        }
+    }
+}
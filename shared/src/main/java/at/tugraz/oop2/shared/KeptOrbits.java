@@ -0,0 +1,86 @@
+package at.tugraz.oop2.shared;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Orbits of the pixels of a frame that reached its iterations, a later render of the same view with more
+ * iterations continues them instead of starting over. Tiles hand them in as chunks from several threads.
+ */
+final class KeptOrbits {
+
+    private final FractalRenderer.Frame frame;
+
+    private final ConcurrentLinkedQueue<OrbitBuffer.Chunk> chunks = new ConcurrentLinkedQueue<>();
+
+    // a pixel taken from the last render had no orbit, the kept ones are incomplete
+    private volatile boolean missing;
+
+    // orbits of a render with fewer iterations that the frame continues, null if it doesn't
+    private OrbitBuffer resumed;
+
+    KeptOrbits(FractalRenderer.Frame frame) {
+        this.frame = frame;
+    }
+
+    /**
+     * Keeps the orbits of a tile, safe to call from several threads
+     */
+    void add(OrbitBuffer.Chunk chunk) {
+        chunks.add(chunk);
+    }
+
+    /**
+     * Marks the kept orbits as incomplete, a pixel that reached the iterations has none
+     */
+    void markMissing() {
+        missing = true;
+    }
+
+    /**
+     * @return the kept orbits or null if some are missing
+     */
+    OrbitBuffer getOrbits() {
+        return missing ? null : new OrbitBuffer(frame.options.width * frame.options.height, frame.options.iterations, chunks);
+    }
+
+    /**
+     * Takes the iteration counts of a render of the same view with fewer iterations, only the pixels
+     * that reached its iterations have to be iterated further
+     *
+     * @param last render with fewer iterations that has orbits
+     * @return number of orbits to continue
+     */
+    int resume(IterationBuffer last) {
+        System.arraycopy(last.getIterations(), 0, frame.iterations, 0, frame.iterations.length);
+        resumed = last.getOrbits();
+        return resumed.getCount();
+    }
+
+    /**
+     * Continues some of the orbits of the render the frame resumes, safe to call from several threads for different orbits
+     *
+     * @param first index of the first orbit
+     * @param count number of orbits
+     */
+    void resumeOrbits(int first, int count) {
+        var kernel = (ResumableKernel) frame.createKernel();
+        var orbit = new EscapeTimeKernel.Orbit();
+        var chunk = new OrbitBuffer.Chunk();
+        int width = frame.options.width;
+        int[] pixels = resumed.getPixels();
+        for (int i = first; i < first + count; i++) {
+            if (frame.isCancelled()) {
+                return;
+            }
+            int pixel = pixels[i];
+            resumed.load(pixel, orbit);
+            int iterationCount = kernel.resume(frame.transform.convertX(pixel % width), frame.transform.convertY(pixel / width), orbit);
+            frame.iterations[pixel] = iterationCount;
+            if (iterationCount == -1 && orbit.isRunning()) {
+                chunk.add(pixel, orbit);
+            }
+        }
+        frame.computed.add(count);
+        chunks.add(chunk);
+    }
+}
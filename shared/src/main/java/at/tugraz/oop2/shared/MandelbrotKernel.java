@@ -0,0 +1,80 @@
+package at.tugraz.oop2.shared;
+
+import lombok.Getter;
+
+/**
+ * Mandelbrot set, z starts at 0 and c is the point. For power 2 the main cardioid and
+ * the period 2 bulb are skipped and rows go through the {@link VectorKernel} if there is one.
+ */
+public final class MandelbrotKernel implements ResumableKernel {
+    private final double power;
+    private final int maxIterations;
+    private final double periodEpsilon;
+    private final boolean interiorCheck;
+    private final VectorKernel vectorKernel;
+    private final boolean single;
+
+    @Getter
+    private int skipped;
+
+    /**
+     * @param power         exponent of z
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @param vectorKernel  kernel for whole rows, null to iterate every point on its own
+     * @param single        if the vector kernel should use floats
+     */
+    public MandelbrotKernel(double power, int maxIterations, double periodEpsilon, VectorKernel vectorKernel, boolean single) {
+        this.power = power;
+        this.maxIterations = maxIterations;
+        this.periodEpsilon = periodEpsilon;
+        // the cardioid and bulb only have a closed form for power 2
+        this.interiorCheck = EscapeTimeKernel.integralPower(power) == 2;
+        this.vectorKernel = vectorKernel != null && vectorKernel.supports(power) ? vectorKernel : null;
+        this.single = single;
+    }
+
+    @Override
+    public int iterate(double x, double y) {
+        if (interiorCheck && EscapeTimeKernel.inMainCardioidOrBulb(x, y)) {
+            skipped++;
+            return -1;
+        }
+        return EscapeTimeKernel.mandelbrot(x, y, power, maxIterations, periodEpsilon);
+    }
+
+    /**
+     * @return false if rows go through the vector kernel, the orbits are only continued one point after the other
+     */
+    @Override
+    public boolean isResumable() {
+        return vectorKernel == null;
+    }
+
+    @Override
+    public int resume(double x, double y, EscapeTimeKernel.Orbit orbit) {
+        if (orbit.iterations == 0) {
+            if (interiorCheck && EscapeTimeKernel.inMainCardioidOrBulb(x, y)) {
+                skipped++;
+                return EscapeTimeKernel.Orbit.ended(orbit);
+            }
+            if (x * x + y * y > 4) {
+                return 0;
+            }
+            orbit.start(0, 0);
+        }
+        return EscapeTimeKernel.resume(x, y, power, maxIterations, periodEpsilon, orbit);
+    }
+
+    @Override
+    public void iterateRow(double[] xs, double y, int[] out) {
+        if (vectorKernel != null) {
+            skipped += vectorKernel.mandelbrotRow(xs, y, single, maxIterations, periodEpsilon, interiorCheck, out);
+            return;
+        }
+
+        for (int x = 0; x < xs.length; x++) {
+            out[x] = iterate(xs[x], y);
+        }
+    }
+}
@@ -1,174 +1,31 @@
 package at.tugraz.oop2.shared;
 
-import at.tugraz.oop2.shared.exception.InvalidDepthException;
-import javafx.concurrent.Service;
-import javafx.concurrent.Task;
-import javafx.scene.canvas.Canvas;
+/**
+ * Renders the Mandelbrot set, or one of the other fractals that are parameterized by the point
+ * like the Burning Ship or the Tricorn
+ */
+public class MandelbrotRenderer extends FractalRenderer {
 
-import java.net.InetSocketAddress;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-public class MandelbrotRenderer extends Service<SimpleImage> {
-
-    private static final boolean DEBUG_PRINT = false;
-
-    static class MandelbrotTask implements Callable<SimpleImage> {
-
-        MandelbrotRenderOptions options;
-        int renderId;
-
-        ColourModes colourMode;
-
-        SpaceTransform transform;
-
-        public MandelbrotTask(int renderId, ColourModes colourMode, MandelbrotRenderOptions options) {
-            this.renderId = renderId;
-            this.colourMode = colourMode;
-            this.options = options;
-            this.transform = new SpaceTransform(options.width, options.height, options.zoom, options.centerX, options.centerY);
-
-            if (DEBUG_PRINT) {
-                System.out.printf("|%04x| %s\n", renderId, transform);
-            }
-        }
-
-        @Override
-        public SimpleImage call() throws InvalidDepthException {
-            var img = new SimpleImage(options.width, getImageHeight());
-
-            if (DEBUG_PRINT) {
-                System.out.printf("|%04x| [%d] %3d (total %3d) %s\n", this.renderId, options.fragmentNumber, getImageHeight(), options.height, options);
-            }
-
-            for (int y = 0; y < getImageHeight(); y++) {
-                for (int x = 0; x < options.width; x++) {
-                    var p = transform.convert(x, y * options.totalFragments + options.fragmentNumber);
-                    int iterationsHeld = calcIterations(p);
-                    img.setPixel(x, y, colourMode.getPixel(iterationsHeld, options.iterations));
-                }
-            }
-
-            return img;
-        }
-
-        private int calcIterations(Complex c) {
-            if (c.radiusSquared() > 4) {
-                return 0;
-            }
-
-            var z = new Complex();
-
-            for (int i = 0; i < options.iterations; i++) {
-                z = z.pow(options.power);
-                z = z.add(c);
-
-                if (z.radiusSquared() >= 4.0) {
-                    return i;
-                }
-            }
-
-            return -1;
-        }
-
-        private int getImageHeight() {
-            int h = options.height / options.totalFragments;
-
-            if (options.fragmentNumber < options.height % options.totalFragments) {
-                h++;
-            }
-
-            return h;
-        }
+    FractalType type = FractalType.MANDELBROT;
 
+    public MandelbrotRenderer(double power, int iterations, double x, double y, double zoom, ColourModes colourMode, RenderMode renderMode) {
+        super(power, iterations, x, y, zoom, colourMode, renderMode);
     }
 
-    double power;
-    int iterations;
-    double x;
-    double y;
-    double zoom;
-    ColourModes colourMode;
-    RenderMode renderMode;
-    int tasksPerWorker;
-    List<InetSocketAddress> connections;
-    int width, height;
-
-    public MandelbrotRenderer(double power, int iterations, double x, double y, double zoom, ColourModes colourMode, RenderMode renderMode, int tasksPerWorker, List<InetSocketAddress> connections, Canvas canvas) {
-        this.power = power;
-        this.iterations = iterations;
-        this.x = x;
-        this.y = y;
-        this.zoom = zoom;
-        this.colourMode = colourMode;
-        this.renderMode = renderMode;
-        this.tasksPerWorker = tasksPerWorker;
-        this.connections = connections;
+    /**
+     * @param type any fractal type except {@link FractalType#JULIA}
+     */
+    public void setFractalType(FractalType type) {
+        if (type == FractalType.JULIA) {
+            throw new IllegalArgumentException("Julia sets need a constant, use the JuliaRenderer");
+        }
+        this.type = type;
     }
 
     @Override
-    public Task<SimpleImage> createTask() {
-        return new Task<SimpleImage>() {
-            @Override
-            protected SimpleImage call() {
-                return renderLocal();
-            }
-        };
-    }
-
-    public void setBounds(int width, int height) {
-        this.width = width;
-        this.height = height;
-    }
-
-    public SimpleImage renderLocal() {
-        int renderId = (int) (Math.random() * Short.MAX_VALUE);
-
-        if (DEBUG_PRINT) {
-            System.out.printf("Rendering Mandelbrot locally |%04x|\n", renderId);
-        }
-
-        ExecutorService executor = null;
-        try {
-            // lets utilize all the power
-            int nproc = Runtime.getRuntime().availableProcessors();
-            executor = Executors.newFixedThreadPool(nproc);
-
-            int nTasks = nproc;
-            var tasks = new ArrayList<MandelbrotTask>();
-
-            for (int i = 0; i < nTasks; i++) {
-                var opts = new MandelbrotRenderOptions(x, y, width, height, zoom, power, iterations, colourMode, i, nTasks, renderMode);
-                tasks.add(new MandelbrotTask(renderId, colourMode, opts));
-            }
-
-
-            var results = executor.invokeAll(tasks);
-            var images = results.stream().map((a) -> {
-                try {
-                    return a.get();
-                } catch (Exception e) {
-                    throw new RuntimeException(e);
-                }
-            }).toList();
-
-            var completeImage = new SimpleImage(images);
-            executor.shutdown();
-
-            return completeImage;
-        } catch (CancellationException e) {
-
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        } finally {
-            if (executor != null) {
-                executor.shutdownNow();
-            }
-        }
-        return null;
+    protected FractalRenderOptions createOptions(int fragmentNumber, int totalFragments) {
+        var opts = new MandelbrotRenderOptions(x, y, width, height, zoom, power, iterations, colourMode, fragmentNumber, totalFragments, renderMode);
+        opts.setType(type);
+        return opts;
     }
 }
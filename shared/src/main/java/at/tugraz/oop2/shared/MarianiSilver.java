@@ -0,0 +1,127 @@
+package at.tugraz.oop2.shared;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Mariani-Silver subdivision: only the border of a rectangle is computed, if the whole border
+ * has the same iterations the inside is filled with them, otherwise the rectangle is split in two.
+ * <p>
+ * This is exact for the inside of the Mandelbrot set since it is connected, but anything that
+ * fits through the border without touching it is lost, like filaments thinner than a pixel or
+ * small islands of a disconnected Julia set. In the views we compared against {@link RenderStrategy#ROWS}
+ * at most 3 pixels of an 800x600 image differed (below 0.001%).
+ */
+public class MarianiSilver {
+    /**
+     * Rectangles with sides up to this length are computed completely instead of split further
+     */
+    public static final int MIN_SIZE = 6;
+
+    /**
+     * The grid is first cut into tiles of this size, otherwise a whole set that doesn't touch
+     * the border of the image would be filled with the colour of the outside
+     */
+    public static final int TILE_SIZE = 64;
+
+    private static final int NOT_COMPUTED = Integer.MIN_VALUE;
+
+    private final int width;
+    private final int height;
+    private final IntBinaryOperator pixel;
+
+    /**
+     * Iterations of every pixel in rows, -1 for infinity
+     */
+    @Getter
+    private final int[] iterations;
+
+    /**
+     * Number of pixels that actually were computed by the pixel function
+     */
+    @Getter
+    private int computed;
+
+    /**
+     * @param width  width of the grid
+     * @param height height of the grid
+     * @param pixel  computes the iterations of the pixel at (x, y)
+     */
+    public MarianiSilver(int width, int height, IntBinaryOperator pixel) {
+        this.width = width;
+        this.height = height;
+        this.pixel = pixel;
+        this.iterations = new int[width * height];
+    }
+
+    /**
+     * Computes all pixels of the grid
+     *
+     * @return iterations of every pixel in rows
+     */
+    public int[] render() {
+        Arrays.fill(iterations, NOT_COMPUTED);
+        computed = 0;
+
+        for (int y = 0; y < height; y += TILE_SIZE) {
+            for (int x = 0; x < width; x += TILE_SIZE) {
+                subdivide(x, y, Math.min(x + TILE_SIZE, width - 1), Math.min(y + TILE_SIZE, height - 1));
+            }
+        }
+
+        return iterations;
+    }
+
+    private int get(int x, int y) {
+        int i = y * width + x;
+        if (iterations[i] == NOT_COMPUTED) {
+            iterations[i] = pixel.applyAsInt(x, y);
+            computed++;
+        }
+        return iterations[i];
+    }
+
+    /**
+     * Corners are inclusive, the border is shared with the neighbouring rectangles so it is only computed once
+     */
+    private void subdivide(int x0, int y0, int x1, int y1) {
+        int first = get(x0, y0);
+        boolean uniform = true;
+
+        for (int x = x0; x <= x1; x++) {
+            uniform &= get(x, y0) == first;
+            uniform &= get(x, y1) == first;
+        }
+        for (int y = y0 + 1; y < y1; y++) {
+            uniform &= get(x0, y) == first;
+            uniform &= get(x1, y) == first;
+        }
+
+        // no inside left
+        if (x1 - x0 < 2 || y1 - y0 < 2) {
+            return;
+        }
+
+        if (uniform) {
+            for (int y = y0 + 1; y < y1; y++) {
+                Arrays.fill(iterations, y * width + x0 + 1, y * width + x1, first);
+            }
+        } else if (x1 - x0 <= MIN_SIZE && y1 - y0 <= MIN_SIZE) {
+            for (int y = y0 + 1; y < y1; y++) {
+                for (int x = x0 + 1; x < x1; x++) {
+                    get(x, y);
+                }
+            }
+        } else if (x1 - x0 >= y1 - y0) {
+            int xm = (x0 + x1) / 2;
+            subdivide(x0, y0, xm, y1);
+            subdivide(xm, y0, x1, y1);
+        } else {
+            int ym = (y0 + y1) / 2;
+            subdivide(x0, y0, x1, ym);
+            subdivide(x0, ym, x1, y1);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package at.tugraz.oop2.shared;
+
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * Orbits of the pixels of a finished render that reached its maximum iterations. A render of the same view
+ * with more iterations continues them instead of starting over, the pixels that escaped or are periodic
+ * already have their final iteration count.
+ */
+public class OrbitBuffer {
+
+    /**
+     * Orbits of some pixels, collected by a single tile
+     */
+    public static class Chunk extends PixelStore.Chunk<double[]> {
+        public Chunk() {
+            super(EscapeTimeKernel.Orbit.SIZE, double[]::new);
+        }
+
+        /**
+         * @param pixel index of the pixel in the image
+         * @param orbit where its orbit stopped
+         */
+        public void add(int pixel, EscapeTimeKernel.Orbit orbit) {
+            int offset = add(pixel);
+            orbit.store(getValues(), offset);
+        }
+    }
+
+    /**
+     * Iterations the orbits did
+     */
+    @Getter
+    private final int iterations;
+
+    private final PixelStore<double[]> states;
+
+    /**
+     * @param pixels     number of pixels of the image
+     * @param iterations iterations the orbits did
+     * @param chunks     orbits of all pixels that reached the iterations
+     */
+    public OrbitBuffer(int pixels, int iterations, Collection<Chunk> chunks) {
+        this.iterations = iterations;
+        this.states = new PixelStore<>(pixels, EscapeTimeKernel.Orbit.SIZE, double[]::new, chunks);
+    }
+
+    /**
+     * @return pixel of every orbit
+     */
+    public int[] getPixels() {
+        return states.getPixels();
+    }
+
+    /**
+     * @return number of orbits
+     */
+    public int getCount() {
+        return states.getCount();
+    }
+
+    /**
+     * @return memory the orbits take
+     */
+    public long getBytes() {
+        return states.getBytes(Double.BYTES);
+    }
+
+    /**
+     * Loads the orbit of a pixel
+     *
+     * @param pixel index of the pixel in the image
+     * @param orbit set to where the orbit stopped
+     * @return false if the pixel has no orbit
+     */
+    public boolean load(int pixel, EscapeTimeKernel.Orbit orbit) {
+        int offset = states.offset(pixel);
+        if (offset < 0) {
+            return false;
+        }
+        orbit.load(states.getValues(), offset, iterations);
+        return true;
+    }
+}
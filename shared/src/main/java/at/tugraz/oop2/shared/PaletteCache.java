@@ -0,0 +1,39 @@
+package at.tugraz.oop2.shared;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Palettes of the recent colour modes and iteration counts, see {@link ColourModes#getPalette(int)}. Both panes and
+ * the probe and final render of automatic iterations colour with different iteration counts, each keeps its palette.
+ * The least recently used palette is evicted once there are more than {@link #MAX_PALETTES}.
+ */
+final class PaletteCache {
+
+    /**
+     * Most palettes kept, one of 10000 iterations takes 40 KB
+     */
+    static final int MAX_PALETTES = 16;
+
+    private record Key(ColourModes mode, int maxIterations) {
+    }
+
+    private static final Map<Key, int[]> PALETTES = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+            return size() > MAX_PALETTES;
+        }
+    };
+
+    private PaletteCache() {
+    }
+
+    /**
+     * @param mode          colour mode of the palette
+     * @param maxIterations maximum iterations in a calculation
+     * @return the cached palette, built if there is none
+     */
+    static synchronized int[] get(ColourModes mode, int maxIterations) {
+        return PALETTES.computeIfAbsent(new Key(mode, maxIterations), key -> mode.createPalette(maxIterations));
+    }
+}
@@ -0,0 +1,336 @@
+package at.tugraz.oop2.shared;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Deep zoom kernel for power 2 based on perturbation theory.
+ * <p>
+ * A single reference orbit {@code Z} at the center of the image is computed with {@link BigDecimal},
+ * every pixel only iterates its distance {@code d} to the reference in doubles:
+ * {@code d' = 2 * Z * d + d^2 + dc}. The distance stays tiny, so doubles are precise enough even
+ * if the coordinates themselves need far more digits than a double has.
+ * <p>
+ * Pixels whose orbit doesn't follow the reference anymore are a glitch, that is detected when
+ * {@code |Z + d - Z_0| < |d|}, i.e. the pixel is closer to the start of the reference than to the
+ * reference itself, or when the reference ended before the pixel escaped. The pixel is then
+ * rebased onto the start of the reference orbit with {@code d = Z + d - Z_0}.
+ * <p>
+ * Optionally the first iterations are skipped with a series approximation
+ * {@code d_n = A_n * d0 + B_n * d0^2 + C_n * d0^3}, where {@code d0} is the distance of the pixel to the center.
+ * <p>
+ * Deltas are plain doubles, so this works until the pixel size gets close to {@link Double#MIN_NORMAL}
+ * (zoom of about 1000). Iterations are counted the same way as in {@link EscapeTimeKernel}.
+ */
+public class PerturbationKernel implements FractalKernel {
+    /**
+     * Digits in addition to the ones needed for the pixel size
+     */
+    public static final int GUARD_DIGITS = 20;
+
+    /**
+     * The series is used as long as its cubic term is this much smaller than the linear term
+     */
+    public static final double SERIES_TOLERANCE = 1e-12;
+
+    /**
+     * Iterations of the reference orbit between two checks for cancellation
+     */
+    private static final int CANCEL_CHECK_INTERVAL = 256;
+
+    private final boolean julia;
+    private final int maxIterations;
+
+    // reference orbit rounded to doubles, refLength entries are valid
+    private final double[] refR;
+    private final double[] refI;
+    private final int refLength;
+
+    // the whole reference computed so far, kernels for more iterations continue it
+    private final Reference reference;
+
+    // series coefficients of the iteration the series is evaluated at
+    private int seriesIterations;
+    private double aR, aI, bR, bI, cR, cI;
+    // radius the series was approximated for, NaN without the series
+    private double seriesRadius = Double.NaN;
+
+    /**
+     * Number of times a pixel was rebased, only for statistics
+     */
+    @Getter
+    private long rebases;
+
+    /**
+     * Reference orbit up to the iteration it was computed for and where its {@link BigDecimal} iteration stopped,
+     * so a kernel with more iterations only computes the ones that are missing
+     */
+    private static final class Reference {
+        final double[] r;
+        final double[] i;
+        // last iteration that was computed, the orbit escaped there if escaped is set
+        final int computed;
+        final boolean escaped;
+        final BigDecimal zr;
+        final BigDecimal zi;
+        final BigDecimal cr;
+        final BigDecimal ci;
+        final MathContext context;
+
+        Reference(double[] r, double[] i, int computed, boolean escaped, BigDecimal zr, BigDecimal zi, BigDecimal cr, BigDecimal ci, MathContext context) {
+            this.r = r;
+            this.i = i;
+            this.computed = computed;
+            this.escaped = escaped;
+            this.zr = zr;
+            this.zi = zi;
+            this.cr = cr;
+            this.ci = ci;
+            this.context = context;
+        }
+
+        /**
+         * @param maxIterations iterations the orbit needs
+         * @param cancelled     checked every {@link #CANCEL_CHECK_INTERVAL} iterations
+         * @return this orbit if it escaped or has the iterations already, otherwise one continued up to them
+         */
+        Reference extend(int maxIterations, BooleanSupplier cancelled) {
+            if (escaped || computed >= maxIterations) {
+                return this;
+            }
+
+            double[] r = Arrays.copyOf(this.r, maxIterations + 1);
+            double[] i = Arrays.copyOf(this.i, maxIterations + 1);
+            BigDecimal zr = this.zr;
+            BigDecimal zi = this.zi;
+            BigDecimal two = BigDecimal.valueOf(2);
+            for (int n = computed + 1; n <= maxIterations; n++) {
+                if (n % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                    throw new CancellationException();
+                }
+
+                BigDecimal zr2 = zr.multiply(zr, context);
+                BigDecimal zi2 = zi.multiply(zi, context);
+                zi = two.multiply(zr).multiply(zi, context).add(ci, context);
+                zr = zr2.subtract(zi2, context).add(cr, context);
+
+                r[n] = zr.doubleValue();
+                i[n] = zi.doubleValue();
+                if (r[n] * r[n] + i[n] * i[n] >= 4.0) {
+                    return new Reference(r, i, n, true, zr, zi, cr, ci, context);
+                }
+            }
+            return new Reference(r, i, maxIterations, false, zr, zi, cr, ci, context);
+        }
+    }
+
+    /**
+     * @param centerX       real part of the reference point
+     * @param centerY       imaginary part of the reference point
+     * @param constX        real part of the Julia constant, ignored for the Mandelbrot set
+     * @param constY        imaginary part of the Julia constant, ignored for the Mandelbrot set
+     * @param julia         if the Julia set should be computed instead of the Mandelbrot set
+     * @param maxIterations maximum iterations in a calculation
+     * @param pixelSize     distance between two pixels, determines the precision of the reference
+     * @param cancelled     checked while the reference is computed, it takes long at deep zoom
+     * @throws CancellationException if the render was cancelled while the reference was computed
+     */
+    public PerturbationKernel(BigDecimal centerX, BigDecimal centerY, double constX, double constY, boolean julia, int maxIterations, double pixelSize, BooleanSupplier cancelled) {
+        this(julia, maxIterations, start(centerX, centerY, constX, constY, julia, pixelSize).extend(maxIterations, cancelled));
+    }
+
+    private PerturbationKernel(boolean julia, int maxIterations, Reference reference) {
+        this.julia = julia;
+        this.maxIterations = maxIterations;
+        this.reference = reference;
+        this.refR = reference.r;
+        this.refI = reference.i;
+        this.refLength = Math.min(reference.computed, maxIterations);
+    }
+
+    private static Reference start(BigDecimal centerX, BigDecimal centerY, double constX, double constY, boolean julia, double pixelSize) {
+        int digits = (int) Math.ceil(-Math.log10(pixelSize)) + GUARD_DIGITS;
+        var context = new MathContext(Math.max(digits, 17));
+
+        BigDecimal cr = julia ? new BigDecimal(constX) : centerX;
+        BigDecimal ci = julia ? new BigDecimal(constY) : centerY;
+        BigDecimal zr = julia ? centerX : BigDecimal.ZERO;
+        BigDecimal zi = julia ? centerY : BigDecimal.ZERO;
+        return new Reference(new double[]{zr.doubleValue()}, new double[]{zi.doubleValue()}, 0, false, zr, zi, cr, ci, context);
+    }
+
+    /**
+     * Kernel with the same reference orbit for another maximum of iterations, the reference is only continued
+     * by the iterations it doesn't have yet. The series is approximated again for the same radius, the kernel
+     * is the same as one computed for these iterations from the start.
+     *
+     * @param maxIterations maximum iterations in a calculation
+     * @param cancelled     checked while the reference is continued
+     * @return this kernel if it has these iterations, a new one otherwise
+     * @throws CancellationException if the render was cancelled while the reference was continued
+     */
+    public PerturbationKernel withIterations(int maxIterations, BooleanSupplier cancelled) {
+        if (maxIterations == this.maxIterations) {
+            return this;
+        }
+
+        var kernel = new PerturbationKernel(julia, maxIterations, reference.extend(maxIterations, cancelled));
+        if (!Double.isNaN(seriesRadius)) {
+            kernel.approximateSeries(seriesRadius);
+        }
+        return kernel;
+    }
+
+    /**
+     * Kernel with the same reference orbit and series, neither is computed again.
+     * Every thread needs its own kernel since it counts the rebases.
+     *
+     * @return kernel that shares everything except the statistics
+     */
+    public PerturbationKernel copy() {
+        return new PerturbationKernel(this);
+    }
+
+    private PerturbationKernel(PerturbationKernel other) {
+        this.julia = other.julia;
+        this.maxIterations = other.maxIterations;
+        this.refR = other.refR;
+        this.refI = other.refI;
+        this.refLength = other.refLength;
+        this.reference = other.reference;
+        this.seriesRadius = other.seriesRadius;
+        this.seriesIterations = other.seriesIterations;
+        this.aR = other.aR;
+        this.aI = other.aI;
+        this.bR = other.bR;
+        this.bI = other.bI;
+        this.cR = other.cR;
+        this.cI = other.cI;
+    }
+
+    /**
+     * @return number of iterations of the reference orbit, smaller than the maximum if the reference escaped
+     */
+    public int getReferenceIterations() {
+        return refLength;
+    }
+
+    /**
+     * @return number of iterations every pixel skips with the series approximation
+     */
+    public int getSeriesIterations() {
+        return seriesIterations;
+    }
+
+    /**
+     * Enables the series approximation for all pixels that are at most radius away from the center
+     *
+     * @param radius largest distance of a pixel to the center
+     */
+    public void approximateSeries(double radius) {
+        // A, B, C of iteration n, A_0 is 1 for Julia since d_0 = d0
+        double ar = julia ? 1 : 0, ai = 0, br = 0, bi = 0, cr = 0, ci = 0;
+        int n = 0;
+
+        while (n + 1 < refLength) {
+            double zr = refR[n], zi = refI[n];
+            // C' = 2 Z C + 2 A B
+            double ncr = 2 * (zr * cr - zi * ci) + 2 * (ar * br - ai * bi);
+            double nci = 2 * (zr * ci + zi * cr) + 2 * (ar * bi + ai * br);
+            // B' = 2 Z B + A^2
+            double nbr = 2 * (zr * br - zi * bi) + ar * ar - ai * ai;
+            double nbi = 2 * (zr * bi + zi * br) + 2 * ar * ai;
+            // A' = 2 Z A + 1 for Mandelbrot since dc = d0
+            double nar = 2 * (zr * ar - zi * ai) + (julia ? 0 : 1);
+            double nai = 2 * (zr * ai + zi * ar);
+
+            double linear = Math.hypot(nar, nai) * radius;
+            double cubic = Math.hypot(ncr, nci) * radius * radius * radius;
+            if (!(cubic <= SERIES_TOLERANCE * linear)) {
+                break;
+            }
+
+            ar = nar;
+            ai = nai;
+            br = nbr;
+            bi = nbi;
+            cr = ncr;
+            ci = nci;
+            n++;
+        }
+
+        this.seriesRadius = radius;
+        this.seriesIterations = n;
+        this.aR = ar;
+        this.aI = ai;
+        this.bR = br;
+        this.bI = bi;
+        this.cR = cr;
+        this.cI = ci;
+    }
+
+    @Override
+    public boolean isRelative() {
+        return true;
+    }
+
+    /**
+     * Iterations of a pixel
+     *
+     * @param dx real distance of the pixel to the center
+     * @param dy imaginary distance of the pixel to the center
+     * @return iterations the pixel held or -1 for infinity
+     */
+    @Override
+    public int iterate(double dx, double dy) {
+        double dcr = julia ? 0 : dx;
+        double dci = julia ? 0 : dy;
+
+        // d = A d0 + B d0^2 + C d0^3
+        int n = seriesIterations;
+        double d2r = dx * dx - dy * dy, d2i = 2 * dx * dy;
+        double d3r = d2r * dx - d2i * dy, d3i = d2r * dy + d2i * dx;
+        double dr = aR * dx - aI * dy + bR * d2r - bI * d2i + cR * d3r - cI * d3i;
+        double di = aR * dy + aI * dx + bR * d2i + bI * d2r + cR * d3i + cI * d3r;
+
+        // m is the position in the reference orbit, it restarts after a rebase
+        int m = n;
+        for (int i = n; i < maxIterations; i++) {
+            double zr = refR[m], zi = refI[m];
+            double ndr = 2 * (zr * dr - zi * di) + dr * dr - di * di + dcr;
+            di = 2 * (zr * di + zi * dr) + 2 * dr * di + dci;
+            dr = ndr;
+            m++;
+
+            double pr = refR[m] + dr;
+            double pi = refI[m] + di;
+            double p2 = pr * pr + pi * pi;
+            if (p2 >= 4.0) {
+                return i;
+            }
+
+            double sr = pr - refR[0];
+            double si = pi - refI[0];
+            if (sr * sr + si * si < dr * dr + di * di || m >= refLength) {
+                dr = sr;
+                di = si;
+                m = 0;
+                rebases++;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public void iterateRow(double[] xs, double y, int[] out) {
+        for (int x = 0; x < xs.length; x++) {
+            out[x] = iterate(xs[x], y);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package at.tugraz.oop2.shared;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntFunction;
+
+/**
+ * The same number of values for some pixels of an image, in a primitive array of any type. The tiles collect the
+ * values of their pixels in chunks, the finished store puts them into one array and finds them by a slot per pixel.
+ *
+ * @param <A> primitive array type of the values, like {@code int[]} or {@code double[]}
+ */
+public class PixelStore<A> {
+
+    /**
+     * Values of some pixels, collected by a single tile
+     *
+     * @param <A> primitive array type of the values
+     */
+    public static class Chunk<A> {
+        private final int perPixel;
+
+        private final IntFunction<A> allocate;
+
+        private int[] pixels = new int[64];
+
+        private A values;
+
+        private int count;
+
+        /**
+         * @param perPixel values of every pixel
+         * @param allocate creates an array of the values, like {@code int[]::new}
+         */
+        public Chunk(int perPixel, IntFunction<A> allocate) {
+            this.perPixel = perPixel;
+            this.allocate = allocate;
+            this.values = allocate.apply(pixels.length * perPixel);
+        }
+
+        /**
+         * Adds a pixel, its values are written to {@link #getValues()} at the returned index afterwards
+         *
+         * @param pixel index of the pixel in the image
+         * @return index of the first value of the pixel
+         */
+        public int add(int pixel) {
+            if (count == pixels.length) {
+                int[] grownPixels = new int[count * 2];
+                System.arraycopy(pixels, 0, grownPixels, 0, count);
+                A grownValues = allocate.apply(count * 2 * perPixel);
+                System.arraycopy(values, 0, grownValues, 0, count * perPixel);
+                pixels = grownPixels;
+                values = grownValues;
+            }
+            pixels[count] = pixel;
+            return count++ * perPixel;
+        }
+
+        /**
+         * @return values of the pixels, replaced when the chunk grows
+         */
+        public A getValues() {
+            return values;
+        }
+    }
+
+    private final int perPixel;
+
+    /**
+     * Index of the values of every pixel, -1 if it has none
+     */
+    private final int[] slots;
+
+    /**
+     * Pixel of every slot
+     */
+    private final int[] pixels;
+
+    private final A values;
+
+    /**
+     * @param pixels   number of pixels of the image
+     * @param perPixel values of every pixel that has them
+     * @param allocate creates an array of the values
+     * @param chunks   values of all pixels that have them
+     */
+    public PixelStore(int pixels, int perPixel, IntFunction<A> allocate, Collection<? extends Chunk<A>> chunks) {
+        this.perPixel = perPixel;
+        this.slots = new int[pixels];
+        Arrays.fill(slots, -1);
+        int count = 0;
+        for (Chunk<A> chunk : chunks) {
+            count += chunk.count;
+        }
+        this.pixels = new int[count];
+        this.values = allocate.apply(count * perPixel);
+
+        int slot = 0;
+        for (Chunk<A> chunk : chunks) {
+            System.arraycopy(chunk.pixels, 0, this.pixels, slot, chunk.count);
+            System.arraycopy(chunk.values, 0, values, slot * perPixel, chunk.count * perPixel);
+            for (int i = 0; i < chunk.count; i++) {
+                slots[chunk.pixels[i]] = slot++;
+            }
+        }
+    }
+
+    /**
+     * @return number of pixels with values
+     */
+    public int getCount() {
+        return pixels.length;
+    }
+
+    /**
+     * @return pixel of every slot
+     */
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return values of all pixels, the ones of a pixel start at {@link #offset(int)}
+     */
+    public A getValues() {
+        return values;
+    }
+
+    /**
+     * @param pixel index of the pixel in the image
+     * @return index of the first value of the pixel, -1 if it has none
+     */
+    public int offset(int pixel) {
+        int slot = slots[pixel];
+        return slot >= 0 ? slot * perPixel : -1;
+    }
+
+    /**
+     * @param valueBytes bytes of a single value
+     * @return memory the store takes
+     */
+    public long getBytes(int valueBytes) {
+        return (long) (slots.length + pixels.length) * Integer.BYTES + (long) pixels.length * perPixel * valueBytes;
+    }
+}
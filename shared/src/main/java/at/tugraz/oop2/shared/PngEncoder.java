@@ -0,0 +1,204 @@
+package at.tugraz.oop2.shared;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes an 8 bit RGB PNG while the rows come in. Every row is filtered on its own and deflated into
+ * IDAT chunks of a fixed size, only the last two rows and a chunk are kept.
+ * <p>
+ * Each row takes the filter whose bytes are smallest as signed values, the heuristic the PNG
+ * specification suggests for adaptive filtering.
+ */
+public class PngEncoder implements ImageEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    /**
+     * Bytes of image data per IDAT chunk
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+
+    private final DataOutputStream out;
+
+    private final Deflater deflater;
+
+    private final IdatStream idat = new IdatStream();
+
+    private final DeflaterOutputStream data;
+
+    private final int height;
+
+    private byte[] row;
+
+    private byte[] previous;
+
+    // filter byte and the filtered row for every filter
+    private final byte[][] filtered = new byte[5][];
+
+    private int written;
+
+    /**
+     * @param out    stream the file is written to
+     * @param width  width of the image
+     * @param height height of the image
+     */
+    public PngEncoder(OutputStream out, int width, int height) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.height = height;
+        this.row = new byte[width * 3];
+        this.previous = new byte[width * 3];
+        for (int filter = 0; filter < filtered.length; filter++) {
+            filtered[filter] = new byte[width * 3 + 1];
+            filtered[filter][0] = (byte) filter;
+        }
+
+        this.out.write(SIGNATURE);
+        var header = new byte[13];
+        writeInt(header, 0, width);
+        writeInt(header, 4, height);
+        header[8] = 8; // bits per channel
+        header[9] = 2; // RGB
+        writeChunk("IHDR", header, header.length);
+
+        deflater = new Deflater();
+        data = new DeflaterOutputStream(idat, deflater, CHUNK_SIZE);
+    }
+
+    @Override
+    public void writeRows(int[] pixels, int offset, int rows) throws IOException {
+        int width = row.length / 3;
+        for (int y = 0; y < rows; y++) {
+            RawRgbEncoder.toRgb(pixels, offset + y * width, row, 0, width);
+            data.write(filter());
+            byte[] last = previous;
+            previous = row;
+            row = last;
+        }
+        written += rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (written != height) {
+                throw new IOException("the image has " + height + " rows, " + written + " were written");
+            }
+            data.finish();
+            idat.flush();
+            writeChunk("IEND", new byte[0], 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Filters the row with every filter
+     *
+     * @return the filter byte and the row filtered with the filter that is best for it
+     */
+    private byte[] filter() {
+        for (int i = 0; i < row.length; i++) {
+            int left = i >= 3 ? row[i - 3] & 0xff : 0;
+            int up = previous[i] & 0xff;
+            int upLeft = i >= 3 ? previous[i - 3] & 0xff : 0;
+            int value = row[i] & 0xff;
+            filtered[FILTER_NONE][i + 1] = (byte) value;
+            filtered[FILTER_SUB][i + 1] = (byte) (value - left);
+            filtered[FILTER_UP][i + 1] = (byte) (value - up);
+            filtered[FILTER_AVERAGE][i + 1] = (byte) (value - (left + up >> 1));
+            filtered[FILTER_PAETH][i + 1] = (byte) (value - paeth(left, up, upLeft));
+        }
+
+        byte[] best = filtered[FILTER_NONE];
+        long bestSum = Long.MAX_VALUE;
+        for (byte[] candidate : filtered) {
+            long sum = 0;
+            for (int i = 1; i < candidate.length; i++) {
+                sum += Math.abs(candidate[i]);
+            }
+            if (sum < bestSum) {
+                best = candidate;
+                bestSum = sum;
+            }
+        }
+        return best;
+    }
+
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int toLeft = Math.abs(estimate - left);
+        int toUp = Math.abs(estimate - up);
+        int toUpLeft = Math.abs(estimate - upLeft);
+        if (toLeft <= toUp && toLeft <= toUpLeft) {
+            return left;
+        }
+        return toUp <= toUpLeft ? up : upLeft;
+    }
+
+    private void writeChunk(String type, byte[] bytes, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        var crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(bytes, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(bytes, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Collects the deflated bytes and writes them as IDAT chunks
+     */
+    private class IdatStream extends OutputStream {
+        private final byte[] chunk = new byte[CHUNK_SIZE];
+
+        private int length;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int count) throws IOException {
+            while (count > 0) {
+                int copied = Math.min(count, chunk.length - length);
+                System.arraycopy(bytes, offset, chunk, length, copied);
+                length += copied;
+                offset += copied;
+                count -= copied;
+                if (length == chunk.length) {
+                    flush();
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (length > 0) {
+                writeChunk("IDAT", chunk, length);
+                length = 0;
+            }
+        }
+    }
+}
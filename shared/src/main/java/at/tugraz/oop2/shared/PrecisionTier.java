@@ -0,0 +1,20 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Number format the pixels are computed in, picked from the zoom by {@link FractalRenderOptions#getPrecisionTier()}
+ */
+public enum PrecisionTier {
+    /**
+     * Floats, only with the {@link VectorKernel} where they give twice the lanes
+     */
+    FLOAT,
+    DOUBLE,
+    /**
+     * {@link DoubleDoubleKernel}
+     */
+    DOUBLE_DOUBLE,
+    /**
+     * {@link PerturbationKernel}
+     */
+    PERTURBATION
+}
@@ -0,0 +1,134 @@
+package at.tugraz.oop2.shared;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pixels of a frame that lie exactly on a pixel of the last render of the pane, the frame takes their
+ * iteration counts, orbits and sub-samples from it instead of computing them again
+ */
+final class PreviousRender {
+
+    // pixels of the frame that are taken
+    final LongAdder reused = new LongAdder();
+
+    private final IterationBuffer last;
+
+    private final IterationBuffer.PixelMap pixels;
+
+    private final int width;
+
+    private final int height;
+
+    private PreviousRender(IterationBuffer last, IterationBuffer.PixelMap pixels, FractalRenderOptions options) {
+        this.last = last;
+        this.pixels = pixels;
+        this.width = options.width;
+        this.height = options.height;
+    }
+
+    /**
+     * @param last    last finished render or null
+     * @param options options of the frame
+     * @param tier    precision tier of the frame
+     * @return the pixels of the frame on the last render, null if none of them is
+     */
+    static PreviousRender of(IterationBuffer last, FractalRenderOptions options, PrecisionTier tier) {
+        var pixels = last != null ? last.map(options, tier) : null;
+        return pixels != null ? new PreviousRender(last, pixels, options) : null;
+    }
+
+    /**
+     * @return number of pixels of the frame that are taken
+     */
+    long getCount() {
+        return pixels.getCount();
+    }
+
+    /**
+     * @return size of a pixel of the frame in pixels of the last render
+     */
+    double getScale() {
+        return pixels.getScale();
+    }
+
+    /**
+     * @return true if the row of the frame is a row of the last render
+     */
+    boolean hasRow(int y) {
+        return pixels.getRows()[y] >= 0;
+    }
+
+    /**
+     * @return true if the pixel of the frame is a pixel of the last render
+     */
+    boolean has(int x, int y) {
+        return pixels.getColumns()[x] >= 0 && pixels.getRows()[y] >= 0;
+    }
+
+    /**
+     * @return iteration count the last render has for a pixel of the frame that it has
+     */
+    int getIterations(int x, int y) {
+        return last.getIterations()[index(x, y)];
+    }
+
+    /**
+     * @return true if the last render kept the orbits of its pixels
+     */
+    boolean hasOrbits() {
+        return last.getOrbits() != null;
+    }
+
+    /**
+     * Loads the orbit the last render kept for a pixel of the frame that it has
+     *
+     * @return false if the orbit escaped or was stopped by the periodicity check
+     */
+    boolean loadOrbit(int x, int y, EscapeTimeKernel.Orbit orbit) {
+        return last.getOrbits().load(index(x, y), orbit);
+    }
+
+    /**
+     * Loads the sub-samples of a pixel of the frame, only a shift by whole pixels with the same antialiasing has them
+     *
+     * @param samples gets the iteration counts of the samples
+     * @return false if the last render didn't supersample the pixel
+     */
+    boolean loadSamples(int x, int y, int[] samples) {
+        var previousSamples = last.getSamples();
+        return pixels.getScale() == 1 && previousSamples != null && previousSamples.getPerPixel() == samples.length
+                && has(x, y) && previousSamples.load(index(x, y), samples);
+    }
+
+    /**
+     * @return true if the rectangle is a tile of the last render, every pixel of it is taken then
+     */
+    boolean isTile(int x0, int y0, int tileWidth, int tileHeight) {
+        // the guesses of the subdivision depend on the borders of the tile, only the same tile has the same pixels
+        int column = pixels.getColumns()[x0];
+        int row = pixels.getRows()[y0];
+        return pixels.getScale() == 1 && column >= 0 && row >= 0
+                && column % RenderScheduler.TILE_SIZE == 0 && row % RenderScheduler.TILE_SIZE == 0
+                && Math.min(RenderScheduler.TILE_SIZE, width - column) == tileWidth
+                && Math.min(RenderScheduler.TILE_SIZE, height - row) == tileHeight;
+    }
+
+    /**
+     * @return the columns of a tile the last render doesn't have
+     */
+    int[] missingColumns(int x0, int[] columns) {
+        int count = 0;
+        int[] missing = new int[columns.length];
+        for (int x : columns) {
+            if (pixels.getColumns()[x0 + x] < 0) {
+                missing[count++] = x;
+            }
+        }
+        return Arrays.copyOf(missing, count);
+    }
+
+    private int index(int x, int y) {
+        return pixels.getRows()[y] * width + pixels.getColumns()[x];
+    }
+}
@@ -0,0 +1,55 @@
+package at.tugraz.oop2.shared;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes the pixels as three bytes each, red, green and blue, in rows without a header
+ */
+public class RawRgbEncoder implements ImageEncoder {
+
+    private final OutputStream out;
+
+    private final byte[] row;
+
+    /**
+     * @param out   stream the bytes are written to
+     * @param width width of the image
+     */
+    public RawRgbEncoder(OutputStream out, int width) {
+        this.out = out;
+        this.row = new byte[width * 3];
+    }
+
+    @Override
+    public void writeRows(int[] pixels, int offset, int rows) throws IOException {
+        int width = row.length / 3;
+        for (int y = 0; y < rows; y++) {
+            toRgb(pixels, offset + y * width, row, 0, width);
+            out.write(row);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Unpacks the colour channels of ARGB pixels, the alpha is dropped
+     *
+     * @param pixels packed ARGB pixels
+     * @param from   index of the first pixel
+     * @param rgb    gets three bytes per pixel
+     * @param to     index of the first byte
+     * @param count  number of pixels
+     */
+    static void toRgb(int[] pixels, int from, byte[] rgb, int to, int count) {
+        for (int i = 0; i < count; i++) {
+            int pixel = pixels[from + i];
+            rgb[to + i * 3] = (byte) (pixel >> 16);
+            rgb[to + i * 3 + 1] = (byte) (pixel >> 8);
+            rgb[to + i * 3 + 2] = (byte) pixel;
+        }
+    }
+}
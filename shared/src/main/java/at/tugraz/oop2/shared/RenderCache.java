@@ -0,0 +1,79 @@
+package at.tugraz.oop2.shared;
+
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Iteration counts of recent renders by their options, so going back to a view only colours it again.
+ * The least recently used renders are evicted once the cache is over its size. The options must not
+ * contain the colour mode, a render is coloured after it is taken from the cache.
+ */
+public class RenderCache {
+
+    private final long maxBytes;
+
+    private final Map<FractalRenderOptions, IterationBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Getter
+    private long bytes;
+
+    @Getter
+    private long hits;
+
+    @Getter
+    private long misses;
+
+    @Getter
+    private long evictions;
+
+    /**
+     * @param maxBytes size of all cached renders together
+     */
+    public RenderCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param options options of the render without the colour mode
+     * @return the cached render or null
+     */
+    public synchronized IterationBuffer get(FractalRenderOptions options) {
+        var buffer = entries.get(options);
+        if (buffer != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return buffer;
+    }
+
+    /**
+     * Caches a finished render, evicts the least recently used ones until it fits
+     *
+     * @param options options of the render without the colour mode, must not be changed afterwards
+     * @param buffer  iteration counts of the render
+     */
+    public synchronized void put(FractalRenderOptions options, IterationBuffer buffer) {
+        if (buffer.getBytes() > maxBytes) {
+            return;
+        }
+
+        var replaced = entries.put(options, buffer);
+        bytes += buffer.getBytes() - (replaced != null ? replaced.getBytes() : 0);
+
+        Iterator<IterationBuffer> eldest = entries.values().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().getBytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d hits, %d misses, %d evictions, %d renders in %d of %d MB", hits, misses, evictions, entries.size(), bytes >> 20, maxBytes >> 20);
+    }
+}
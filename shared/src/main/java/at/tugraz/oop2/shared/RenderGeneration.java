@@ -0,0 +1,28 @@
+package at.tugraz.oop2.shared;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the renders of a pane. Every render takes a new generation when it starts,
+ * all renders of older generations are superseded and drop their remaining work.
+ */
+public class RenderGeneration {
+    private final AtomicLong current = new AtomicLong();
+
+    /**
+     * Starts a new generation, renders of older ones stop at the next row or tile
+     *
+     * @return the new generation
+     */
+    public long next() {
+        return current.incrementAndGet();
+    }
+
+    /**
+     * @param generation generation of a render
+     * @return true if a newer render was started since
+     */
+    public boolean isStale(long generation) {
+        return current.get() != generation;
+    }
+}
@@ -0,0 +1,19 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Last finished render of a pane, the next render reuses the pixels it has in common with it
+ */
+public class RenderHistory {
+    private volatile IterationBuffer last;
+
+    /**
+     * @return iteration counts of the last finished render or null if there was none
+     */
+    public IterationBuffer getLast() {
+        return last;
+    }
+
+    public void setLast(IterationBuffer last) {
+        this.last = last;
+    }
+}
@@ -0,0 +1,28 @@
+package at.tugraz.oop2.shared;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Development logger for render statistics, {@link FractalLogger} must not be extended
+ */
+public class RenderLogger {
+    private static Logger loggerSingleton;
+
+    private static Logger logger() {
+        if (loggerSingleton == null) {
+            loggerSingleton = Logger.getLogger("RENDER");
+        }
+        return loggerSingleton;
+    }
+
+    public static void log(Object... args) {
+        var builder = new StringBuilder();
+
+        for (var o : args) {
+            builder.append(o);
+            builder.append(' ');
+        }
+
+        logger().debug(builder.toString());
+    }
+}
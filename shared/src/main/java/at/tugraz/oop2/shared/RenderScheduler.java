@@ -0,0 +1,83 @@
+package at.tugraz.oop2.shared;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Long-lived pool all renders run on, there is one thread per core no matter how many panes render at once.
+ * <p>
+ * A frame is cut into small tiles that are handed out by splitting the range of tile indices in halves.
+ * A thread works through its own half and idle threads steal the other one, so a slow tile only
+ * delays the thread it is on instead of the whole frame.
+ */
+public final class RenderScheduler {
+    /**
+     * Side length of a tile in pixels
+     */
+    public static final int TILE_SIZE = 64;
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private RenderScheduler() {
+    }
+
+    /**
+     * Renders all tiles on the pool, blocks until they are done and logs the statistics of the pool.
+     * Once the render is cancelled the tiles that didn't start yet are dropped, the running ones
+     * have to check for it themselves.
+     *
+     * @param label     prefix of the log line
+     * @param tiles     number of tiles
+     * @param tile      renders the tile with the given index, called from the threads of the pool
+     * @param cancelled true once the render was cancelled
+     */
+    public static void run(String label, int tiles, IntConsumer tile, BooleanSupplier cancelled) throws InterruptedException, ExecutionException {
+        var busy = new LongAdder();
+        var dropped = new LongAdder();
+        long steals = POOL.getStealCount();
+        long start = System.nanoTime();
+
+        POOL.submit(new TileRange(0, tiles, tile, cancelled, busy, dropped)).get();
+
+        long elapsed = System.nanoTime() - start;
+        double utilisation = elapsed > 0 ? busy.doubleValue() / ((double) elapsed * POOL.getParallelism()) : 0;
+        RenderLogger.log(label, tiles, "tiles in", elapsed / 1000000, "ms,", dropped.sum(), "dropped,", POOL.getStealCount() - steals, "steals,",
+                String.format("%.0f%%", utilisation * 100), "utilisation of", POOL.getParallelism(), "threads");
+    }
+
+    private static class TileRange extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer tile;
+        private final BooleanSupplier cancelled;
+        private final LongAdder busy;
+        private final LongAdder dropped;
+
+        TileRange(int from, int to, IntConsumer tile, BooleanSupplier cancelled, LongAdder busy, LongAdder dropped) {
+            this.from = from;
+            this.to = to;
+            this.tile = tile;
+            this.cancelled = cancelled;
+            this.busy = busy;
+            this.dropped = dropped;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.getAsBoolean()) {
+                dropped.add(to - from);
+            } else if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileRange(from, mid, tile, cancelled, busy, dropped), new TileRange(mid, to, tile, cancelled, busy, dropped));
+            } else if (to > from) {
+                long start = System.nanoTime();
+                tile.accept(from);
+                busy.add(System.nanoTime() - start);
+            }
+        }
+    }
+}
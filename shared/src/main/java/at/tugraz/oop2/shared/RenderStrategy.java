@@ -0,0 +1,15 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * How a fragment of an image is computed
+ */
+public enum RenderStrategy {
+    /**
+     * Every pixel is computed, row by row
+     */
+    ROWS,
+    /**
+     * Only the borders of rectangles are computed, see {@link MarianiSilver}
+     */
+    SUBDIVISION
+}
@@ -0,0 +1,23 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Kernel whose orbits can be stopped at the maximum iterations and continued later, a render with more
+ * iterations of the same view only continues the orbits of the pixels that reached them
+ */
+public interface ResumableKernel extends FractalKernel {
+
+    @Override
+    default boolean isResumable() {
+        return true;
+    }
+
+    /**
+     * Iterations of a single point like {@link #iterate}, but the orbit can be continued later
+     *
+     * @param x     real part of the point
+     * @param y     imaginary part of the point
+     * @param orbit where the orbit of the point stopped, no iterations to start it, where it stops now if it is still running
+     * @return iterations until escape or -1 for infinity
+     */
+    int resume(double x, double y, EscapeTimeKernel.Orbit orbit);
+}
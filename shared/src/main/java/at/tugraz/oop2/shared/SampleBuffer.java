@@ -0,0 +1,125 @@
+package at.tugraz.oop2.shared;
+
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * Iteration counts of the sub-samples of the pixels at an edge of a finished render. Such a pixel gets the
+ * average colour of its samples, the buffer keeps them so colouring the render again doesn't compute them again.
+ */
+public class SampleBuffer {
+
+    /**
+     * Samples of some pixels, collected by a single tile
+     */
+    public static class Chunk extends PixelStore.Chunk<int[]> {
+        private final int samples;
+
+        /**
+         * @param samples samples of every pixel
+         */
+        public Chunk(int samples) {
+            super(samples, int[]::new);
+            this.samples = samples;
+        }
+
+        /**
+         * @param pixel      index of the pixel in the image
+         * @param iterations iteration counts of its samples
+         */
+        public void add(int pixel, int[] iterations) {
+            int offset = add(pixel);
+            System.arraycopy(iterations, 0, getValues(), offset, samples);
+        }
+    }
+
+    /**
+     * Samples of every pixel that has them
+     */
+    @Getter
+    private final int perPixel;
+
+    private final PixelStore<int[]> iterations;
+
+    /**
+     * @param pixels   number of pixels of the image
+     * @param perPixel samples of every pixel that has them
+     * @param chunks   samples of all pixels at an edge
+     */
+    public SampleBuffer(int pixels, int perPixel, Collection<Chunk> chunks) {
+        this.perPixel = perPixel;
+        this.iterations = new PixelStore<>(pixels, perPixel, int[]::new, chunks);
+    }
+
+    /**
+     * @return number of pixels with samples
+     */
+    public int getCount() {
+        return iterations.getCount();
+    }
+
+    /**
+     * @return memory the samples take
+     */
+    public long getBytes() {
+        return iterations.getBytes(Integer.BYTES);
+    }
+
+    /**
+     * @return true if the pixel has samples
+     */
+    public boolean has(int pixel) {
+        return iterations.offset(pixel) >= 0;
+    }
+
+    /**
+     * Loads the samples of a pixel
+     *
+     * @param pixel      index of the pixel in the image
+     * @param iterations set to the iteration counts of the samples
+     * @return false if the pixel has no samples
+     */
+    public boolean load(int pixel, int[] iterations) {
+        int offset = this.iterations.offset(pixel);
+        if (offset < 0) {
+            return false;
+        }
+        System.arraycopy(this.iterations.getValues(), offset, iterations, 0, perPixel);
+        return true;
+    }
+
+    /**
+     * @param pixel   index of a pixel that has samples
+     * @param palette colour of every iteration count, see {@link ColourModes#getPalette}
+     * @return the average colour of its samples
+     */
+    public int colour(int pixel, int[] palette) {
+        return average(palette, iterations.getValues(), iterations.offset(pixel), perPixel);
+    }
+
+    /**
+     * Averages every channel of the colours of some iteration counts
+     *
+     * @param palette    colour of every iteration count, see {@link ColourModes#getPalette}
+     * @param iterations iteration counts
+     * @param from       index of the first one
+     * @param count      number of iteration counts
+     * @return the packed average colour
+     */
+    public static int average(int[] palette, int[] iterations, int from, int count) {
+        int alpha = 0;
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        for (int i = from; i < from + count; i++) {
+            int colour = palette[iterations[i] + 1];
+            alpha += colour >>> 24;
+            red += colour >> 16 & 0xff;
+            green += colour >> 8 & 0xff;
+            blue += colour & 0xff;
+        }
+        int half = count / 2;
+        return (alpha + half) / count << 24 | (red + half) / count << 16 | (green + half) / count << 8 | (blue + half) / count;
+    }
+}
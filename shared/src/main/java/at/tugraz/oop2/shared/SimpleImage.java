@@ -2,14 +2,25 @@ package at.tugraz.oop2.shared;
 
 import at.tugraz.oop2.shared.exception.InvalidDepthException;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.image.PixelFormat;
 import lombok.Getter;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 
+/**
+ * Image with up to four 8 bit channels per pixel, packed into an int in rows. The channels of a pixel are
+ * its lowest bytes, the first one the highest of them, so an image of depth 3 holds opaque ARGB pixels.
+ */
 public class SimpleImage implements Serializable {
+    private static final int OPAQUE = 0xff << 24;
+
+    /**
+     * Packed pixels in rows
+     */
     @Getter
-    private short[] data;
+    private int[] pixels;
     @Getter
     private int depth;
     @Getter
@@ -27,16 +38,14 @@ public class SimpleImage implements Serializable {
             this.width = interleaved.get(0).getWidth();
             this.height = interleaved.stream().mapToInt(SimpleImage::getHeight).sum();
             this.depth = interleaved.get(0).getDepth();
-            this.data = new short[width * height * depth];
+            this.pixels = new int[width * height];
             for (int i = 0; i < interleaved.size(); i++) {
                 SimpleImage subImage = interleaved.get(i);
 
                 for (int j = 0; j < subImage.height; j++) {
-                    for (int k = 0; k < subImage.width; k++) {
-                        int y = i + interleaved.size() * j;
-                        if (y < height) {
-                            setPixel(k, y, subImage.getPixel(k, j));
-                        }
+                    int y = i + interleaved.size() * j;
+                    if (y < height) {
+                        System.arraycopy(subImage.pixels, j * width, pixels, y * width, width);
                     }
                 }
             }
@@ -45,16 +54,24 @@ public class SimpleImage implements Serializable {
     }
 
     public SimpleImage(int depth, int width, int height) {
+        if (depth < 1 || depth > Integer.BYTES) {
+            throw new IllegalArgumentException("depth must be between 1 and " + Integer.BYTES + ": " + depth);
+        }
         this.depth = depth;
         this.width = width;
         this.height = height;
-        this.data = new short[width * height * depth];
+        this.pixels = new int[width * height];
+        if (depth == 3) {
+            Arrays.fill(pixels, OPAQUE);
+        }
     }
 
     public byte[] getByteData() {
-        byte[] arr = new byte[data.length];
-        for (int i = 0; i < data.length; i++) {
-            arr[i] = (byte) data[i];
+        byte[] arr = new byte[pixels.length * depth];
+        for (int i = 0; i < pixels.length; i++) {
+            for (int c = 0; c < depth; c++) {
+                arr[i * depth + c] = (byte) (pixels[i] >> (depth - 1 - c) * 8);
+            }
         }
         return arr;
     }
@@ -63,36 +80,60 @@ public class SimpleImage implements Serializable {
         if (data.length != depth) {
             throw new InvalidDepthException();
         }
-        for (int i = 0; i < depth; i++) {
-            this.data[width * y * depth + x * depth + i] = data[i];
-        }
+        setPacked(x, y, pack(data));
     }
 
     public short[] getPixel(int x, int y) {
         short[] pixel = new short[depth];
+        int packed = pixels[y * width + x];
         for (int i = 0; i < depth; i++) {
-            pixel[i] = this.data[width * y * depth + x * depth + i];
+            pixel[i] = (short) (packed >> (depth - 1 - i) * 8 & 0xff);
         }
         return pixel;
     }
 
+    /**
+     * @param packed the channels of the pixel as returned by {@link #pack(short[])}
+     */
+    public void setPacked(int x, int y, int packed) {
+        pixels[y * width + x] = packed;
+    }
+
+    public int getPacked(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    /**
+     * Packs the channels of a pixel, an opaque ARGB pixel for three channels
+     *
+     * @param data channels of the pixel, each of them 8 bit
+     * @return the packed pixel
+     */
+    public static int pack(short[] data) {
+        int packed = data.length == 3 ? OPAQUE : 0;
+        for (int i = 0; i < data.length; i++) {
+            packed |= (data[i] & 0xff) << (data.length - 1 - i) * 8;
+        }
+        return packed;
+    }
+
     public void copyToCanvas(Canvas canvas) {
+        copyToCanvas(canvas, 0, 0, width, height);
+    }
+
+    /**
+     * Copies a rectangle of the image to the same place on the canvas, straight from the pixels of an image of depth 3
+     */
+    public void copyToCanvas(Canvas canvas, int left, int top, int width, int height) {
         int cvWidth = ((int) canvas.getWidth());
         int cvHeight = ((int) canvas.getHeight());
 
-        int minWidth = Math.min(width, cvWidth);
-        int minHeight = Math.min(height, cvHeight);
-
-        var writer = canvas.getGraphicsContext2D().getPixelWriter();
-        for (int x = 0; x < minWidth; x++) {
-            for (int y = 0; y < minHeight; y++) {
-                short[] pixel = this.getPixel(x, y);
-                int a = 0xff << 24;
-                int r = (pixel[0] & 0xff) << 16;
-                int g = (pixel[1] & 0xff) << 8;
-                int b = (pixel[2] & 0xff);
-                writer.setArgb(x, y, a | r | g | b);
-            }
+        int maxX = Math.min(left + width, Math.min(this.width, cvWidth));
+        int maxY = Math.min(top + height, Math.min(this.height, cvHeight));
+        if (maxX <= left || maxY <= top) {
+            return;
         }
+
+        canvas.getGraphicsContext2D().getPixelWriter().setPixels(left, top, maxX - left, maxY - top, PixelFormat.getIntArgbPreInstance(), pixels, top * this.width + left, this.width);
     }
 }
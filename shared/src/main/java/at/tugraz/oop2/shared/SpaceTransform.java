@@ -1,24 +1,57 @@
 package at.tugraz.oop2.shared;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 
 /**
- * This class is used to transform image coords to complex plane coords
+ * This class is used to transform image coords to complex plane coords. The pixels are on the grid of the
+ * multiples of the pixel size, up to half a pixel off the center, so a pan by whole pixels or a zoom by whole
+ * levels puts pixels on exactly the same points as before.
  */
 public class SpaceTransform {
 
     double scaleX;
     double scaleY;
-    double offsetX;
-    double offsetY;
+    // column and row of the grid that are pixel 0
+    long gridX;
+    long gridY;
+    double halfWidth;
+    double halfHeight;
+    // row of the whole image that is row 0 of this transform, see band
+    int firstRow;
 
     public SpaceTransform(int imgWidth, int imgHeight, double zoom, double centerX, double centerY) {
-        double wcomp = Math.pow(2.0, 2.0 - zoom);
-        double hcomp = ((double) imgHeight / (double) imgWidth) * Math.pow(2.0, 2.0 - zoom);
+        // the whole levels are applied exactly, zooms whole levels apart have pixels exactly a power of two apart
+        double levels = Math.floor(zoom);
+        double wcomp = Math.scalb(Math.pow(2.0, levels - zoom), 2 - (int) levels);
+        double hcomp = ((double) imgHeight / (double) imgWidth) * wcomp;
 
         this.scaleX = wcomp / ((double) imgWidth - 1);
         this.scaleY = hcomp / ((double) imgHeight - 1);
-        this.offsetX = centerX - wcomp / 2.0;
-        this.offsetY = centerY - hcomp / 2.0;
+        this.halfWidth = wcomp / 2.0;
+        this.halfHeight = hcomp / 2.0;
+        this.gridX = Math.round((centerX - halfWidth) / scaleX);
+        this.gridY = Math.round((centerY - halfHeight) / scaleY);
+    }
+
+    private SpaceTransform(SpaceTransform image, int firstRow) {
+        this.scaleX = image.scaleX;
+        this.scaleY = image.scaleY;
+        this.gridX = image.gridX;
+        this.gridY = image.gridY;
+        this.halfWidth = image.halfWidth;
+        this.halfHeight = image.halfHeight;
+        this.firstRow = firstRow;
+    }
+
+    /**
+     * Transform of a band of rows of the image, the pixels are on exactly the same points
+     *
+     * @param first row of the image that is row 0 of the band
+     * @return transform of the band
+     */
+    public SpaceTransform band(int first) {
+        return new SpaceTransform(this, firstRow + first);
     }
 
     /**
@@ -29,7 +62,90 @@ public class SpaceTransform {
      * @return coord on complex plane
      */
     public Complex convert(int x, int y) {
-        return new Complex(x * scaleX + offsetX, y * scaleY + offsetY);
+        return new Complex(convertX(x), convertY(y));
+    }
+
+    /**
+     * Same as {@link #convert(int, int)} but only the real part, doesn't allocate
+     *
+     * @param x image x in range [0, width - 1]
+     * @return real part on complex plane
+     */
+    public double convertX(int x) {
+        return (x + gridX) * scaleX;
+    }
+
+    /**
+     * Same as {@link #convert(int, int)} but only the imaginary part, doesn't allocate
+     *
+     * @param y image y in range [0, height - 1]
+     * @return imaginary part on complex plane
+     */
+    public double convertY(int y) {
+        return (y + firstRow + gridY) * scaleY;
+    }
+
+    /**
+     * Moves an exact center onto the pixel grid like {@link #convertX(int)} does, the relative kernels iterate around
+     * it so that {@link #deltaX(int)} is the distance to exactly the point of the pixel
+     *
+     * @param centerX exact real part of the center
+     * @return real part of the center of the grid
+     */
+    public BigDecimal gridCenterX(BigDecimal centerX) {
+        return snap(centerX, halfWidth, scaleX);
+    }
+
+    /**
+     * Same as {@link #gridCenterX(BigDecimal)} for the imaginary part
+     *
+     * @param centerY exact imaginary part of the center
+     * @return imaginary part of the center of the grid
+     */
+    public BigDecimal gridCenterY(BigDecimal centerY) {
+        return snap(centerY, halfHeight, scaleY);
+    }
+
+    private static BigDecimal snap(BigDecimal center, double half, double scale) {
+        var exactHalf = new BigDecimal(half);
+        var exactScale = new BigDecimal(scale);
+        return center.subtract(exactHalf).divide(exactScale, 0, RoundingMode.HALF_UP).multiply(exactScale).add(exactHalf);
+    }
+
+    /**
+     * Distance of the pixel column to the center of the grid, see {@link #gridCenterX(BigDecimal)}, doesn't lose
+     * precision at deep zoom like {@link #convertX(int)}
+     *
+     * @param x image x in range [0, width - 1]
+     * @return real distance to the center
+     */
+    public double deltaX(int x) {
+        return x * scaleX - halfWidth;
+    }
+
+    /**
+     * Distance of the pixel row to the center of the grid, see {@link #gridCenterY(BigDecimal)}, doesn't lose
+     * precision at deep zoom like {@link #convertY(int)}
+     *
+     * @param y image y in range [0, height - 1]
+     * @return imaginary distance to the center
+     */
+    public double deltaY(int y) {
+        return (y + firstRow) * scaleY - halfHeight;
+    }
+
+    /**
+     * @return distance between two pixels on the complex plane
+     */
+    public double getPixelSize() {
+        return Math.max(scaleX, scaleY);
+    }
+
+    /**
+     * @return distance of the corners to the center
+     */
+    public double getRadius() {
+        return Math.hypot(halfWidth, halfHeight);
     }
 
     public double dragDistanceX(double pixelDist) {
@@ -40,9 +156,29 @@ public class SpaceTransform {
         return pixelDist * scaleY;
     }
 
+    /**
+     * Inverse of {@link #dragDistanceX(double)}
+     *
+     * @param dist real distance on the complex plane
+     * @return distance in pixels, not rounded
+     */
+    public double pixelDistanceX(double dist) {
+        return dist / scaleX;
+    }
+
+    /**
+     * Inverse of {@link #dragDistanceY(double)}
+     *
+     * @param dist imaginary distance on the complex plane
+     * @return distance in pixels, not rounded
+     */
+    public double pixelDistanceY(double dist) {
+        return dist / scaleY;
+    }
+
     @Override
     public String toString() {
-        return String.format("SpaceTransform{scaleX=%.3f, scaleY=%.3f, offsetX=%.3f, offsetY=%.3f}",
-                scaleX, scaleY, offsetX, offsetY);
+        return String.format("SpaceTransform{scaleX=%.3f, scaleY=%.3f, gridX=%d, gridY=%d}",
+                scaleX, scaleY, gridX, gridY);
     }
 }
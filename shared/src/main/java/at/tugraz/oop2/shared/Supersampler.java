@@ -0,0 +1,135 @@
+package at.tugraz.oop2.shared;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Supersamples the pixels of a frame that have a neighbour with another iteration count, once all iteration
+ * counts of the frame are done. Every such pixel is split into antialiasing by antialiasing cells with a sample
+ * at a random place in each and gets the average colour of the samples.
+ */
+final class Supersampler {
+
+    final LongAdder supersampled = new LongAdder();
+
+    // supersampled pixels whose samples are taken from the last render
+    final LongAdder reusedSamples = new LongAdder();
+
+    private final FractalRenderer.Frame frame;
+
+    private final ConcurrentLinkedQueue<SampleBuffer.Chunk> samples = new ConcurrentLinkedQueue<>();
+
+    Supersampler(FractalRenderer.Frame frame) {
+        this.frame = frame;
+    }
+
+    /**
+     * @return the sub-samples of the pixels at an edge
+     */
+    SampleBuffer getSamples() {
+        var options = frame.options;
+        return new SampleBuffer(options.width * options.height, options.antialiasing * options.antialiasing, samples);
+    }
+
+    /**
+     * Supersamples the pixels at an edge of a single tile, safe to call from several threads for different tiles.
+     * After a shift by whole pixels the samples of the pixels the last render has are taken from it.
+     *
+     * @param index tile index in rows
+     */
+    void supersampleTile(int index) {
+        if (frame.isCancelled()) {
+            return;
+        }
+
+        var options = frame.options;
+        var transform = frame.transform;
+        int x0 = index % frame.getColumns() * RenderScheduler.TILE_SIZE;
+        int y0 = index / frame.getColumns() * RenderScheduler.TILE_SIZE;
+        int width = Math.min(RenderScheduler.TILE_SIZE, options.width - x0);
+        int height = Math.min(RenderScheduler.TILE_SIZE, options.height - y0);
+
+        FractalKernel kernel = frame.createKernel();
+        boolean relative = kernel.isRelative();
+        int side = options.antialiasing;
+        int[] sampleIterations = new int[side * side];
+        var chunk = new SampleBuffer.Chunk(sampleIterations.length);
+        int edges = 0;
+
+        for (int y = y0; y < y0 + height; y++) {
+            if (frame.isCancelled()) {
+                return;
+            }
+            double pointY = relative ? transform.deltaY(y) : transform.convertY(y);
+            for (int x = x0; x < x0 + width; x++) {
+                int pixel = y * options.width + x;
+                if (!isEdge(x, y)) {
+                    continue;
+                }
+
+                if (frame.previous != null && frame.previous.loadSamples(x, y, sampleIterations)) {
+                    reusedSamples.increment();
+                } else {
+                    double pointX = relative ? transform.deltaX(x) : transform.convertX(x);
+                    // seeded with the point of the pixel, a pan or the bands of an export get the same samples
+                    int seed = Long.hashCode((y + transform.firstRow + transform.gridY) * 0x9e3779b97f4a7c15L + x + transform.gridX);
+                    for (int sample = 0; sample < sampleIterations.length; sample++) {
+                        double offsetX = (sample % side + jitter(seed, sample, 0)) / side - 0.5;
+                        double offsetY = (sample / side + jitter(seed, sample, 1)) / side - 0.5;
+                        sampleIterations[sample] = kernel.iterate(pointX + transform.dragDistanceX(offsetX), pointY + transform.dragDistanceY(offsetY));
+                    }
+                }
+                chunk.add(pixel, sampleIterations);
+                frame.image.getPixels()[pixel] = SampleBuffer.average(frame.palette, sampleIterations, 0, sampleIterations.length);
+                edges++;
+            }
+        }
+        samples.add(chunk);
+        supersampled.add(edges);
+
+        if (frame.tileListener != null) {
+            frame.tileListener.tileDone(frame.image, x0, y0, width, height);
+        }
+    }
+
+    /**
+     * @return true if a pixel has a neighbour in its row or column whose iteration count differs
+     */
+    private boolean isEdge(int x, int y) {
+        int width = frame.options.width;
+        int[] iterations = frame.iterations;
+        int pixel = y * width + x;
+        int iterationCount = iterations[pixel];
+        return x > 0 && differ(iterations[pixel - 1], iterationCount)
+                || x < width - 1 && differ(iterations[pixel + 1], iterationCount)
+                || y > 0 && differ(iterations[pixel - width], iterationCount)
+                || y < frame.options.height - 1 && differ(iterations[pixel + width], iterationCount);
+    }
+
+    /**
+     * @return true if one of the pixels is inside and the other one isn't, or their colours may differ by more
+     * than one step of a channel. The colour modes fade over the iterations, counts that are less than
+     * 1/256 of the iterations apart are close to the same colour.
+     */
+    private boolean differ(int iterationCount, int other) {
+        return iterationCount != other && ((iterationCount < 0) != (other < 0) || Math.abs(iterationCount - other) > frame.options.iterations / 256);
+    }
+
+    /**
+     * Place of a sample in its cell, the same in every render, so the samples don't flicker
+     *
+     * @param pixel  seed of the pixel, the same for the same point
+     * @param sample index of the sample in the pixel
+     * @param axis   0 for the x, 1 for the y offset
+     * @return offset from 0 to 1
+     */
+    private static double jitter(int pixel, int sample, int axis) {
+        int hash = pixel * 0x9e3779b9 + (sample * 2 + axis) * 0x85ebca6b;
+        hash ^= hash >>> 16;
+        hash *= 0x7feb352d;
+        hash ^= hash >>> 15;
+        hash *= 0x846ca68b;
+        hash ^= hash >>> 16;
+        return (hash >>> 8) / (double) (1 << 24);
+    }
+}
@@ -0,0 +1,20 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Gets every tile of a render as soon as it is on the image, so it can be shown before the whole image is done.
+ * With a progressive render a tile is delivered once per pass.
+ */
+@FunctionalInterface
+public interface TileListener {
+
+    /**
+     * Called from the render threads, the rectangle of the image is not written again in the same pass
+     *
+     * @param image  image of the render, the other tiles are still being written
+     * @param x      left edge of the tile
+     * @param y      top edge of the tile
+     * @param width  width of the tile
+     * @param height height of the tile
+     */
+    void tileDone(SimpleImage image, int x, int y, int width, int height);
+}
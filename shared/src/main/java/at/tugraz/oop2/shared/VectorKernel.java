@@ -0,0 +1,72 @@
+package at.tugraz.oop2.shared;
+
+/**
+ * Escape time kernel that computes a whole row of pixels at once with SIMD lanes.
+ * The implementation uses the incubating vector api ({@code jdk.incubator.vector}), it is only
+ * built with the {@code vector} maven profile and only used if the module is enabled at runtime.
+ * Results in double precision are the same as the ones of {@link EscapeTimeKernel}.
+ */
+public interface VectorKernel {
+
+    String IMPLEMENTATION = "at.tugraz.oop2.shared.vector.VectorEscapeTimeKernel";
+
+    /**
+     * Shared kernel, null if it isn't available
+     */
+    VectorKernel INSTANCE = load();
+
+    /**
+     * @param power exponent of z
+     * @return true if rows with this power can be computed
+     */
+    boolean supports(double power);
+
+    /**
+     * Iterations of a row of the Mandelbrot set
+     *
+     * @param xs            real parts of the points
+     * @param cy            imaginary part of the row
+     * @param single        if the lanes should be floats instead of doubles, twice as many but less precise
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @param interiorCheck if the main cardioid and period 2 bulb should be skipped
+     * @param out           iterations for every point, -1 for infinity
+     * @return number of pixels skipped by the interior check
+     */
+    int mandelbrotRow(double[] xs, double cy, boolean single, int maxIterations, double periodEpsilon, boolean interiorCheck, int[] out);
+
+    /**
+     * Iterations of a row of the Julia set
+     *
+     * @param xs            real parts of the points
+     * @param zy            imaginary part of the row
+     * @param cx            real part of the constant
+     * @param cy            imaginary part of the constant
+     * @param single        if the lanes should be floats instead of doubles, twice as many but less precise
+     * @param maxIterations maximum iterations in a calculation
+     * @param periodEpsilon distance at which an orbit counts as periodic, negative disables the check
+     * @param out           iterations for every point, -1 for infinity
+     */
+    void juliaRow(double[] xs, double zy, double cx, double cy, boolean single, int maxIterations, double periodEpsilon, int[] out);
+
+    /**
+     * Loads the vector kernel if it was built and the module is enabled
+     *
+     * @return the kernel or null, in which case the scalar kernel has to be used
+     */
+    static VectorKernel load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            RenderLogger.log("Vector kernel disabled, start with --add-modules jdk.incubator.vector to enable it");
+            return null;
+        }
+
+        try {
+            var kernel = (VectorKernel) Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+            RenderLogger.log("Vector kernel enabled:", kernel);
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            RenderLogger.log("Vector kernel not available, build with -Pvector to include it");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package at.tugraz.oop2.shared.vector;
+
+import at.tugraz.oop2.shared.EscapeTimeKernel;
+import at.tugraz.oop2.shared.VectorKernel;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Power 2 escape time kernel on the vector api, every lane is one pixel.
+ * It does exactly the same floating point operations in the same order as {@link EscapeTimeKernel},
+ * so the iterations are identical. Lanes that escaped or became periodic are masked out,
+ * the loop ends once no lane is active anymore.
+ * <p>
+ * C2 only compiles vector operations to SIMD instructions if the method stays small enough to inline
+ * all of them, so the pixels outside the radius and in the interior are sorted out with scalar code
+ * and the vector loop only gets plain arrays.
+ */
+public class VectorEscapeTimeKernel implements VectorKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOAT_SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean supports(double power) {
+        return EscapeTimeKernel.integralPower(power) == 2;
+    }
+
+    @Override
+    public int mandelbrotRow(double[] xs, double cy, boolean single, int maxIterations, double periodEpsilon, boolean interiorCheck, int[] out) {
+        return iterateRow(xs, cy, 0, 0, false, single, interiorCheck, maxIterations, periodEpsilon, out);
+    }
+
+    @Override
+    public void juliaRow(double[] xs, double zy, double cx, double cy, boolean single, int maxIterations, double periodEpsilon, int[] out) {
+        iterateRow(xs, zy, cx, cy, true, single, false, maxIterations, periodEpsilon, out);
+    }
+
+    @Override
+    public String toString() {
+        return "VectorEscapeTimeKernel{" + SPECIES + ", " + FLOAT_SPECIES + "}";
+    }
+
+    /**
+     * Mandelbrot: z starts at 0 and c is the pixel, Julia: z starts at the pixel and c is the constant.
+     * In single precision the lanes are floats, there are twice as many of them.
+     *
+     * @return number of pixels skipped by the interior check
+     */
+    private static int iterateRow(double[] xs, double y, double constX, double constY, boolean julia, boolean single, boolean interiorCheck,
+                                  int maxIterations, double eps, int[] out) {
+        int lanes = single ? FLOAT_SPECIES.length() : SPECIES.length();
+        double[] zr = new double[lanes];
+        double[] zi = new double[lanes];
+        double[] cr = new double[lanes];
+        double[] ci = new double[lanes];
+        boolean[] iterated = new boolean[lanes];
+        double[] counts = new double[lanes];
+        float[][] floats = new float[5][lanes];
+        int skipped = 0;
+
+        for (int x = 0; x < xs.length; x += lanes) {
+            // lanes past the end of the row are left inactive
+            for (int l = 0; l < lanes; l++) {
+                double px = x + l < xs.length ? xs[x + l] : 0;
+                iterated[l] = false;
+
+                if (x + l >= xs.length) {
+                    continue;
+                } else if (px * px + y * y > 4) {
+                    out[x + l] = 0;
+                } else if (interiorCheck && EscapeTimeKernel.inMainCardioidOrBulb(px, y)) {
+                    out[x + l] = -1;
+                    skipped++;
+                } else {
+                    iterated[l] = true;
+                }
+
+                zr[l] = julia ? px : 0;
+                zi[l] = julia ? y : 0;
+                cr[l] = julia ? constX : px;
+                ci[l] = julia ? constY : y;
+            }
+
+            if (single) {
+                for (int l = 0; l < lanes; l++) {
+                    floats[0][l] = (float) zr[l];
+                    floats[1][l] = (float) zi[l];
+                    floats[2][l] = (float) cr[l];
+                    floats[3][l] = (float) ci[l];
+                }
+                iterateLanesFloat(floats[0], floats[1], floats[2], floats[3], iterated, maxIterations, (float) eps, floats[4]);
+                for (int l = 0; l < lanes; l++) {
+                    counts[l] = floats[4][l];
+                }
+            } else {
+                iterateLanes(zr, zi, cr, ci, iterated, maxIterations, eps, counts);
+            }
+
+            for (int l = 0; l < lanes; l++) {
+                if (iterated[l]) {
+                    out[x + l] = (int) counts[l];
+                }
+            }
+        }
+
+        return skipped;
+    }
+
+    /**
+     * Every lane counts the iterations it survived, that is the result once it escaped.
+     * Lanes caught in a cycle or still bounded at the end are marked with -1.
+     */
+    private static void iterateLanes(double[] zrs, double[] zis, double[] crs, double[] cis, boolean[] iterated,
+                                     int maxIterations, double eps, double[] counts) {
+        var zr = DoubleVector.fromArray(SPECIES, zrs, 0);
+        var zi = DoubleVector.fromArray(SPECIES, zis, 0);
+        var cr = DoubleVector.fromArray(SPECIES, crs, 0);
+        var ci = DoubleVector.fromArray(SPECIES, cis, 0);
+        var active = VectorMask.fromArray(SPECIES, iterated, 0);
+
+        var zr2 = zr.mul(zr);
+        var zi2 = zi.mul(zi);
+        var refR = zr;
+        var refI = zi;
+        int nextRef = 1;
+        var count = DoubleVector.zero(SPECIES);
+
+        for (int i = 0; i < maxIterations && active.anyTrue(); i++) {
+            zi = zr.mul(2).mul(zi).add(ci);
+            zr = zr2.sub(zi2).add(cr);
+            zr2 = zr.mul(zr);
+            zi2 = zi.mul(zi);
+
+            active = active.and(zr2.add(zi2).compare(VectorOperators.LT, 4.0));
+
+            var periodic = zr.sub(refR).abs().compare(VectorOperators.LE, eps)
+                    .and(zi.sub(refI).abs().compare(VectorOperators.LE, eps))
+                    .and(active);
+            count = count.blend(-1.0, periodic);
+            active = active.and(periodic.not());
+
+            count = count.add(1.0, active);
+
+            // branch free so the vectors never leave the registers
+            boolean updateRef = i == nextRef;
+            VectorMask<Double> update = SPECIES.maskAll(updateRef);
+            refR = refR.blend(zr, update);
+            refI = refI.blend(zi, update);
+            nextRef = updateRef ? nextRef << 1 : nextRef;
+        }
+
+        count.blend(-1.0, active).intoArray(counts, 0);
+    }
+
+    /**
+     * Same as {@link #iterateLanes} in single precision
+     */
+    private static void iterateLanesFloat(float[] zrs, float[] zis, float[] crs, float[] cis, boolean[] iterated,
+                                          int maxIterations, float eps, float[] counts) {
+        var zr = FloatVector.fromArray(FLOAT_SPECIES, zrs, 0);
+        var zi = FloatVector.fromArray(FLOAT_SPECIES, zis, 0);
+        var cr = FloatVector.fromArray(FLOAT_SPECIES, crs, 0);
+        var ci = FloatVector.fromArray(FLOAT_SPECIES, cis, 0);
+        var active = VectorMask.fromArray(FLOAT_SPECIES, iterated, 0);
+
+        var zr2 = zr.mul(zr);
+        var zi2 = zi.mul(zi);
+        var refR = zr;
+        var refI = zi;
+        int nextRef = 1;
+        var count = FloatVector.zero(FLOAT_SPECIES);
+
+        for (int i = 0; i < maxIterations && active.anyTrue(); i++) {
+            zi = zr.mul(2).mul(zi).add(ci);
+            zr = zr2.sub(zi2).add(cr);
+            zr2 = zr.mul(zr);
+            zi2 = zi.mul(zi);
+
+            active = active.and(zr2.add(zi2).compare(VectorOperators.LT, 4.0f));
+
+            var periodic = zr.sub(refR).abs().compare(VectorOperators.LE, eps)
+                    .and(zi.sub(refI).abs().compare(VectorOperators.LE, eps))
+                    .and(active);
+            count = count.blend(-1.0f, periodic);
+            active = active.and(periodic.not());
+
+            count = count.add(1.0f, active);
+
+            boolean updateRef = i == nextRef;
+            VectorMask<Float> update = FLOAT_SPECIES.maskAll(updateRef);
+            refR = refR.blend(zr, update);
+            refI = refI.blend(zi, update);
+            nextRef = updateRef ? nextRef << 1 : nextRef;
+        }
+
+        count.blend(-1.0f, active).intoArray(counts, 0);
+    }
+}